@@ -16,6 +16,8 @@
 
 package net.fabricmc.fabric.api.event;
 
+import net.minecraft.util.Identifier;
+
 /**
  * Base class for Event implementations.
  *
@@ -23,12 +25,20 @@ package net.fabricmc.fabric.api.event;
  * @see EventFactory
  */
 public abstract class Event<T> {
+	/**
+	 * The phase listeners are registered to if no phase is specified.
+	 */
+	public static final Identifier DEFAULT_PHASE = new Identifier("fabric", "default");
+
 	/**
 	 * The invoker field. This should be updated by the implementation to
 	 * always refer to an instance containing all code that should be
 	 * executed upon event emission.
+	 * <p>
+	 * It is volatile so that invokers rebuilt on one thread are safely
+	 * published to threads emitting the event.
 	 */
-	protected T invoker;
+	protected volatile T invoker;
 
 	/**
 	 * Returns the invoker instance.
@@ -49,4 +59,64 @@ public abstract class Event<T> {
 	 * @param listener The desired listener.
 	 */
 	public abstract void register(T listener);
+
+	/**
+	 * Register a listener to the event for a specific phase.
+	 *
+	 * @param phase    The phase to register the listener to.
+	 * @param listener The desired listener.
+	 * @see #register(Identifier, int, Object)
+	 */
+	public void register(Identifier phase, T listener) {
+		register(phase, 0, listener);
+	}
+
+	/**
+	 * Register a listener to the event for a specific phase, with a specific priority.
+	 * <p>
+	 * Phases are called in the order given by {@link #addPhaseOrdering(Identifier, Identifier)};
+	 * phases without any ordering between them are called in the order they were first used,
+	 * starting with {@link #DEFAULT_PHASE}. Within a phase, listeners with a higher priority are
+	 * called first, and listeners with the same priority are called in registration order.
+	 * <p>
+	 * The ordering is resolved on registration, so it has no impact on invoker performance.
+	 * Implementations which do not support ordering simply {@linkplain #register(Object) register}
+	 * the listener.
+	 *
+	 * @param phase    The phase to register the listener to.
+	 * @param priority The priority of the listener within its phase.
+	 * @param listener The desired listener.
+	 */
+	public void register(Identifier phase, int priority, T listener) {
+		register(listener);
+	}
+
+	/**
+	 * Unregister a listener from the event, rebuilding the invoker without it.
+	 * <p>
+	 * Listeners are compared by identity, so the exact instance passed to
+	 * {@link #register(Object)} must be given; if it was registered multiple
+	 * times, only one registration is removed.
+	 * <p>
+	 * Implementations which do not support unregistering listeners keep the
+	 * listener, and return false.
+	 *
+	 * @param listener The listener to remove.
+	 * @return True if the listener was registered to the event and has been removed.
+	 */
+	public boolean unregister(T listener) {
+		return false;
+	}
+
+	/**
+	 * Request that listeners of {@code firstPhase} be called before listeners of {@code secondPhase}.
+	 * <p>
+	 * Implementations which do not support ordering ignore this.
+	 *
+	 * @param firstPhase  The phase which should run first.
+	 * @param secondPhase The phase which should run second.
+	 * @throws IllegalArgumentException If the ordering would create a cycle between phases.
+	 */
+	public void addPhaseOrdering(Identifier firstPhase, Identifier secondPhase) {
+	}
 }
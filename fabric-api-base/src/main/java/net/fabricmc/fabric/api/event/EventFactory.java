@@ -16,6 +16,7 @@
 
 package net.fabricmc.fabric.api.event;
 
+import net.fabricmc.fabric.api.event.metrics.EventMetrics;
 import net.fabricmc.fabric.impl.event.EventFactoryImpl;
 
 import java.util.function.Function;
@@ -24,19 +25,64 @@ import java.util.function.Function;
  * Helper for creating {@link Event} classes.
  */
 public final class EventFactory {
-	private static boolean profilingEnabled = true;
+	/**
+	 * On by default, as invokers report their listeners to the game profiler; setting the
+	 * {@code fabric.event.profiling} system property to {@code false} turns it off from startup,
+	 * so that generated invokers are used.
+	 */
+	private static volatile boolean profilingEnabled = !"false".equals(System.getProperty("fabric.event.profiling"));
+	private static volatile EventMetrics metrics;
 
 	private EventFactory() {
 
 	}
 
 	/**
-	 * @return True if events are supposed to be profiled.
+	 * @return True if events are supposed to be profiled, true by default.
 	 */
 	public static boolean isProfilingEnabled() {
 		return profilingEnabled;
 	}
 
+	/**
+	 * Enable or disable profiling of events, invalidating all existing invokers
+	 * if the setting changes.
+	 * <p>
+	 * Generated invokers (see {@link #createGenerated(Class, Object, Function)})
+	 * are only used while profiling is disabled.
+	 *
+	 * @param enabled Whether events are supposed to be profiled.
+	 */
+	public static void setProfilingEnabled(boolean enabled) {
+		if (profilingEnabled != enabled) {
+			profilingEnabled = enabled;
+			invalidate();
+		}
+	}
+
+	/**
+	 * @return The installed metrics hook, or null if listeners are not measured.
+	 */
+	public static EventMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Install a hook measuring every listener of every array-backed event,
+	 * invalidating all existing invokers.
+	 * <p>
+	 * Measuring wraps every listener, so it should only be enabled when needed;
+	 * with no hook installed, invokers call listeners directly.
+	 *
+	 * @param metrics The metrics hook, or null to stop measuring listeners.
+	 */
+	public static void setMetrics(EventMetrics metrics) {
+		if (EventFactory.metrics != metrics) {
+			EventFactory.metrics = metrics;
+			invalidate();
+		}
+	}
+
 	/**
 	 * Invalidate and re-create all existing "invoker" instances across
 	 * events created by this EventFactory. Use this if, for instance,
@@ -72,11 +118,36 @@ public final class EventFactory {
 	 * @param <T>            The listener type.
 	 * @return The Event instance.
 	 */
-	// TODO: Deprecate this once we have working codegen
 	public static <T> Event<T> createArrayBacked(Class<T> type, T emptyInvoker, Function<T[], T> invokerFactory) {
 		return EventFactoryImpl.createArrayBacked(type, emptyInvoker, invokerFactory);
 	}
 
+	/**
+	 * Create an "array-backed" Event instance with a generated invoker.
+	 * <p>
+	 * Instead of looping over the listener array, the invoker is a class generated
+	 * at runtime for the current set of listeners, with a separate call site for
+	 * each of them. The listeners are called in registration order. If the listener
+	 * method returns a value, the first result which is not {@code passResult}
+	 * (compared by identity for references) is returned immediately; if there is no
+	 * such result, {@code passResult} is returned.
+	 * <p>
+	 * The invoker factory is used instead while profiling is enabled, when code
+	 * generation is disabled (by the {@code fabric.event.disableCodegen} system
+	 * property), or when the listener type cannot be generated for. It must
+	 * therefore implement the same semantics as described above.
+	 *
+	 * @param type           The listener class type. Must be a public functional interface.
+	 * @param passResult     The result signifying that the next listener should be called,
+	 *                       boxed for primitive return types. Ignored for void methods.
+	 * @param invokerFactory The fallback invoker factory, combining multiple listeners into one instance.
+	 * @param <T>            The listener type.
+	 * @return The Event instance.
+	 */
+	public static <T> Event<T> createGenerated(Class<T> type, Object passResult, Function<T[], T> invokerFactory) {
+		return EventFactoryImpl.createGenerated(type, passResult, invokerFactory);
+	}
+
 	/**
 	 * Get the listener object name. This can be used in debugging/profiling
 	 * scenarios.
@@ -85,6 +156,6 @@ public final class EventFactory {
 	 * @return The listener name.
 	 */
 	public static String getHandlerName(Object handler) {
-		return handler.getClass().getName();
+		return EventFactoryImpl.getHandlerName(handler);
 	}
 }
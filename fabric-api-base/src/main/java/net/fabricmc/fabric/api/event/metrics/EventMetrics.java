@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.event.metrics;
+
+import net.fabricmc.fabric.api.event.EventFactory;
+
+/**
+ * A hook measuring the listeners of all array-backed events.
+ * <p>
+ * While a hook is installed through {@link EventFactory#setMetrics(EventMetrics)},
+ * every listener is wrapped so that the time spent in each of its invocations is
+ * reported to its {@link ListenerTimer}. Without a hook, invokers call listeners
+ * directly.
+ *
+ * @see ListenerStatistics
+ */
+@FunctionalInterface
+public interface EventMetrics {
+	/**
+	 * Get the timer for a listener. This is called every time the invoker of an event
+	 * is rebuilt, so implementations should return the same timer for the same listener
+	 * if they accumulate measurements.
+	 *
+	 * @param type     The listener class type of the event.
+	 * @param listener The listener object.
+	 * @return The timer to report invocations of the listener to.
+	 */
+	ListenerTimer getTimer(Class<?> type, Object listener);
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.event.metrics;
+
+import net.fabricmc.fabric.api.event.EventFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link EventMetrics} implementation recording the invocation count, cumulative
+ * time and maximum latency of every listener.
+ * <p>
+ * Statistics are kept for as long as their listener is reachable.
+ */
+public class ListenerStatistics implements EventMetrics {
+	private final Map<Class<?>, Map<Object, Entry>> entries = new ConcurrentHashMap<>();
+
+	@Override
+	public ListenerTimer getTimer(Class<?> type, Object listener) {
+		return entries.computeIfAbsent(type, (t) -> Collections.synchronizedMap(new WeakHashMap<>()))
+			.computeIfAbsent(listener, (l) -> new Entry(type, EventFactory.getHandlerName(l)));
+	}
+
+	/**
+	 * @return A snapshot of the statistics of all reachable listeners.
+	 */
+	public List<Entry> getEntries() {
+		List<Entry> list = new ArrayList<>();
+
+		for (Map<Object, Entry> map : entries.values()) {
+			synchronized (map) {
+				list.addAll(map.values());
+			}
+		}
+
+		return list;
+	}
+
+	/**
+	 * Reset the statistics of all listeners.
+	 */
+	public void reset() {
+		for (Entry entry : getEntries()) {
+			entry.reset();
+		}
+	}
+
+	public static final class Entry implements ListenerTimer {
+		private final Class<?> type;
+		private final String listenerName;
+		private final LongAdder invocations = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		private Entry(Class<?> type, String listenerName) {
+			this.type = type;
+			this.listenerName = listenerName;
+		}
+
+		@Override
+		public void record(long nanos) {
+			invocations.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		private void reset() {
+			invocations.reset();
+			totalNanos.reset();
+			maxNanos.reset();
+		}
+
+		/**
+		 * @return The listener class type of the event the listener is registered to.
+		 */
+		public Class<?> getType() {
+			return type;
+		}
+
+		/**
+		 * @return The listener name, as given by {@link EventFactory#getHandlerName(Object)}.
+		 */
+		public String getListenerName() {
+			return listenerName;
+		}
+
+		public long getInvocations() {
+			return invocations.sum();
+		}
+
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+	}
+}
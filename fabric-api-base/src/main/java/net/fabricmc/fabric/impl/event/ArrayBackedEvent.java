@@ -17,54 +17,246 @@
 package net.fabricmc.fabric.impl.event;
 
 import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.fabricmc.fabric.api.event.metrics.EventMetrics;
+import net.minecraft.util.Identifier;
 
 import java.lang.reflect.Array;
-import java.util.Arrays;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.function.Function;
 
 class ArrayBackedEvent<T> extends Event<T> {
 	private final Class<T> type;
 	private final Function<T[], T> invokerFactory;
 	private final T dummyInvoker;
+	private final InvokerGenerator<T> generator;
+	/**
+	 * Guards all registration state. Dispatch only takes it once after each change,
+	 * to generate the invoker; invokers are published through a volatile write.
+	 */
+	private final Object lock = new Object();
+	private final Map<Identifier, EventPhaseData<T>> phases = new LinkedHashMap<>();
+	private List<EventPhaseData<T>> sortedPhases = new ArrayList<>();
 	private T[] handlers;
 
 	ArrayBackedEvent(Class<T> type, T dummyInvoker, Function<T[], T> invokerFactory) {
+		this(type, dummyInvoker, invokerFactory, null);
+	}
+
+	ArrayBackedEvent(Class<T> type, T dummyInvoker, Function<T[], T> invokerFactory, InvokerGenerator<T> generator) {
 		this.type = type;
 		this.dummyInvoker = dummyInvoker;
 		this.invokerFactory = invokerFactory;
+		this.generator = generator;
+		getOrCreatePhase(DEFAULT_PHASE);
 		update();
 	}
 
 	void update() {
-		if (handlers == null) {
-			if (dummyInvoker != null) {
-				invoker = dummyInvoker;
+		synchronized (lock) {
+			T[] listeners = handlers;
+			EventMetrics metrics = EventFactory.getMetrics();
+
+			if (listeners != null && metrics != null) {
+				listeners = TimedListenerGenerator.wrap(type, listeners, metrics);
+			}
+
+			if (listeners == null) {
+				if (dummyInvoker != null) {
+					invoker = dummyInvoker;
+				} else {
+					//noinspection unchecked
+					invoker = buildInvoker((T[]) Array.newInstance(type, 0));
+				}
+			} else if (listeners.length == 1) {
+				invoker = listeners[0];
+			} else if (isGenerating()) {
+				invoker = createLazyInvoker(listeners);
 			} else {
-				//noinspection unchecked
-				invoker = invokerFactory.apply((T[]) Array.newInstance(type, 0));
+				invoker = buildInvoker(listeners);
+			}
+		}
+	}
+
+	private boolean isGenerating() {
+		return generator != null && EventFactoryImpl.isCodegenEnabled() && !EventFactory.isProfilingEnabled();
+	}
+
+	/**
+	 * Generating an invoker defines a class, so it is deferred to the first emission after
+	 * a change; this way, registering many listeners in a row only generates the last invoker.
+	 * The stub returned here generates the invoker, publishes it in its place and delegates to it.
+	 */
+	private T createLazyInvoker(T[] listeners) {
+		InvocationHandler handler = new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				T target;
+
+				synchronized (lock) {
+					if (invoker == proxy) {
+						invoker = buildInvoker(listeners);
+					}
+
+					target = invoker;
+				}
+
+				if (!method.isAccessible()) {
+					method.setAccessible(true);
+				}
+
+				try {
+					return method.invoke(target, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		};
+
+		try {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, handler));
+		} catch (IllegalArgumentException e) {
+			// not an interface, or not visible from its own class loader
+			return buildInvoker(listeners);
+		}
+	}
+
+	private T buildInvoker(T[] listeners) {
+		if (isGenerating()) {
+			T generated = generator.generate(listeners);
+
+			if (generated != null) {
+				return generated;
 			}
-		} else if (handlers.length == 1) {
-			invoker = handlers[0];
-		} else {
-			invoker = invokerFactory.apply(handlers);
 		}
+
+		return invokerFactory.apply(listeners);
 	}
 
 	@Override
 	public void register(T listener) {
+		register(DEFAULT_PHASE, 0, listener);
+	}
+
+	@Override
+	public void register(Identifier phase, int priority, T listener) {
+		if (phase == null) {
+			throw new NullPointerException("Tried to register a listener for a null phase!");
+		}
+
 		if (listener == null) {
 			throw new NullPointerException("Tried to register a null listener!");
 		}
 
-		if (handlers == null) {
-			//noinspection unchecked
-			handlers = (T[]) Array.newInstance(type, 1);
-			handlers[0] = listener;
-		} else {
-			handlers = Arrays.copyOf(handlers, handlers.length + 1);
-			handlers[handlers.length - 1] = listener;
+		synchronized (lock) {
+			getOrCreatePhase(phase).addListener(priority, listener);
+			rebuildHandlers();
+		}
+	}
+
+	@Override
+	public boolean unregister(T listener) {
+		if (listener == null) {
+			throw new NullPointerException("Tried to unregister a null listener!");
+		}
+
+		synchronized (lock) {
+			for (EventPhaseData<T> phase : sortedPhases) {
+				if (phase.removeListener(listener)) {
+					rebuildHandlers();
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	@Override
+	public void addPhaseOrdering(Identifier firstPhase, Identifier secondPhase) {
+		if (firstPhase == null || secondPhase == null) {
+			throw new NullPointerException("Tried to order a null phase!");
+		}
+
+		synchronized (lock) {
+			EventPhaseData<T> first = getOrCreatePhase(firstPhase);
+			EventPhaseData<T> second = getOrCreatePhase(secondPhase);
+
+			if (second.precedes(first)) {
+				throw new IllegalArgumentException("Ordering phase " + firstPhase + " before " + secondPhase + " would create a cycle!");
+			}
+
+			first.subsequentPhases.add(second);
+			second.previousPhases.add(first);
+			sortPhases();
+			rebuildHandlers();
+		}
+	}
+
+	private EventPhaseData<T> getOrCreatePhase(Identifier id) {
+		EventPhaseData<T> phase = phases.get(id);
+
+		if (phase == null) {
+			phase = new EventPhaseData<>(id, phases.size());
+			phases.put(id, phase);
+			sortPhases();
+		}
+
+		return phase;
+	}
+
+	/**
+	 * Topologically sort the phases, ordering otherwise unconstrained phases by first use.
+	 */
+	private void sortPhases() {
+		Map<EventPhaseData<T>, Integer> remainingPrevious = new HashMap<>();
+		PriorityQueue<EventPhaseData<T>> ready = new PriorityQueue<>(Comparator.comparingInt(phase -> phase.index));
+
+		for (EventPhaseData<T> phase : phases.values()) {
+			remainingPrevious.put(phase, phase.previousPhases.size());
+
+			if (phase.previousPhases.isEmpty()) {
+				ready.add(phase);
+			}
+		}
+
+		List<EventPhaseData<T>> sorted = new ArrayList<>(phases.size());
+
+		while (!ready.isEmpty()) {
+			EventPhaseData<T> phase = ready.poll();
+			sorted.add(phase);
+
+			for (EventPhaseData<T> next : phase.subsequentPhases) {
+				if (remainingPrevious.merge(next, -1, Integer::sum) == 0) {
+					ready.add(next);
+				}
+			}
+		}
+
+		sortedPhases = sorted;
+	}
+
+	private void rebuildHandlers() {
+		List<T> listeners = new ArrayList<>();
+
+		for (EventPhaseData<T> phase : sortedPhases) {
+			for (EventPhaseData.Entry<T> entry : phase.listeners) {
+				listeners.add(entry.listener);
+			}
 		}
 
+		//noinspection unchecked
+		handlers = listeners.isEmpty() ? null : listeners.toArray((T[]) Array.newInstance(type, listeners.size()));
 		update();
 	}
 }
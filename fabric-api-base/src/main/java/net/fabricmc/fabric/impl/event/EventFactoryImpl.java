@@ -25,12 +25,13 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 
 public final class EventFactoryImpl {
-	private static final List<ArrayBackedEvent<?>> ARRAY_BACKED_EVENTS = new ArrayList<>();
+	private static final List<ArrayBackedEvent<?>> ARRAY_BACKED_EVENTS = new CopyOnWriteArrayList<>();
+	private static final boolean CODEGEN_ENABLED = !Boolean.getBoolean("fabric.event.disableCodegen");
 
 	private EventFactoryImpl() {
 
@@ -50,8 +51,23 @@ public final class EventFactoryImpl {
 		return event;
 	}
 
+	public static <T> Event<T> createGenerated(Class<T> type, Object passResult, Function<T[], T> invokerFactory) {
+		ArrayBackedEvent<T> event = new ArrayBackedEvent<>(type, null, invokerFactory, InvokerGenerator.create(type, passResult));
+		ARRAY_BACKED_EVENTS.add(event);
+		return event;
+	}
+
+	public static String getHandlerName(Object handler) {
+		return TimedListenerGenerator.unwrap(handler).getClass().getName();
+	}
+
+	static boolean isCodegenEnabled() {
+		return CODEGEN_ENABLED;
+	}
+
 	// Code originally by sfPlayer1.
 	// Unfortunately, it's slightly slower than just passing an empty array in the first place.
+	// Superseded by InvokerGenerator, which also generates the empty invoker of events created through createGenerated.
 	private static <T> T buildEmptyInvoker(Class<T> handlerClass, Function<T[], T> invokerSetup) {
 		// find the functional interface method
 		Method funcIfMethod = null;
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.fabric.impl.event;
+
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The listeners of a single phase of an {@link ArrayBackedEvent}, kept sorted by
+ * descending priority (and registration order for equal priorities), together
+ * with the ordering constraints of the phase.
+ */
+final class EventPhaseData<T> {
+	final Identifier id;
+	/**
+	 * The order in which the phase was first used, breaking ties between unordered phases.
+	 */
+	final int index;
+	final List<Entry<T>> listeners = new ArrayList<>();
+	final Set<EventPhaseData<T>> subsequentPhases = new LinkedHashSet<>();
+	final Set<EventPhaseData<T>> previousPhases = new LinkedHashSet<>();
+
+	EventPhaseData(Identifier id, int index) {
+		this.id = id;
+		this.index = index;
+	}
+
+	void addListener(int priority, T listener) {
+		int i = listeners.size();
+
+		while (i > 0 && listeners.get(i - 1).priority < priority) {
+			i--;
+		}
+
+		listeners.add(i, new Entry<>(priority, listener));
+	}
+
+	/**
+	 * Remove the first registration of the given listener, compared by identity.
+	 *
+	 * @return True if the listener was registered to this phase.
+	 */
+	boolean removeListener(T listener) {
+		for (int i = 0; i < listeners.size(); i++) {
+			if (listeners.get(i).listener == listener) {
+				listeners.remove(i);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return True if the given phase is this phase or is (transitively) ordered after it.
+	 */
+	boolean precedes(EventPhaseData<T> other) {
+		if (this == other) {
+			return true;
+		}
+
+		for (EventPhaseData<T> phase : subsequentPhases) {
+			if (phase.precedes(other)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	static final class Entry<T> {
+		final int priority;
+		final T listener;
+
+		Entry(int priority, T listener) {
+			this.priority = priority;
+			this.listener = listener;
+		}
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.fabric.impl.event;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spins invoker classes for array-backed events.
+ * <p>
+ * Each generated class holds every listener in its own final field and calls
+ * them one after another, so that every listener gets a separate (and usually
+ * monomorphic) call site instead of sharing the single megamorphic one of a loop.
+ * <p>
+ * For listener methods returning a value, the first result which differs from
+ * the "pass" result is returned immediately; if every listener passes, the pass
+ * result is returned. Reference results are compared by identity.
+ * <p>
+ * Every generated class is defined in its own class loader, so that it can be
+ * unloaded once the invoker it was generated for is replaced.
+ */
+final class InvokerGenerator<T> implements Opcodes {
+	private static final String OBJECT = "java/lang/Object";
+	private static final String PACKAGE = "net/fabricmc/fabric/impl/event/generated/";
+	/**
+	 * Above this many listeners, the unrolled method would approach the JVM's method size limit.
+	 */
+	static final int MAX_LISTENERS = 256;
+	private static final AtomicInteger COUNTER = new AtomicInteger();
+
+	private final Class<T> type;
+	private final Object passResult;
+	private final Method method;
+
+	private InvokerGenerator(Class<T> type, Object passResult, Method method) {
+		this.type = type;
+		this.passResult = passResult;
+		this.method = method;
+	}
+
+	/**
+	 * @return A generator for the given listener type, or null if the type cannot have
+	 * its invokers generated (not a public interface with exactly one abstract method,
+	 * or a pass result which does not fit the method's return type).
+	 */
+	static <T> InvokerGenerator<T> create(Class<T> type, Object passResult) {
+		if (!type.isInterface() || !Modifier.isPublic(type.getModifiers())) {
+			return null;
+		}
+
+		Method funcIfMethod = null;
+
+		for (Method m : type.getMethods()) {
+			if (Modifier.isAbstract(m.getModifiers())) {
+				if (funcIfMethod != null) {
+					return null;
+				}
+
+				funcIfMethod = m;
+			}
+		}
+
+		if (funcIfMethod == null) {
+			return null;
+		}
+
+		Class<?> returnType = funcIfMethod.getReturnType();
+
+		if (returnType.isPrimitive() && returnType != void.class) {
+			if (passResult == null || wrap(returnType) != passResult.getClass()) {
+				return null;
+			}
+		} else if (passResult != null && !returnType.isInstance(passResult)) {
+			return null;
+		}
+
+		return new InvokerGenerator<>(type, passResult, funcIfMethod);
+	}
+
+	/**
+	 * Generate an invoker calling the given listeners in order.
+	 *
+	 * @param listeners The listeners, which are copied into the invoker.
+	 * @return The invoker instance, or null if there are too many listeners to unroll.
+	 */
+	T generate(T[] listeners) {
+		if (listeners.length > MAX_LISTENERS) {
+			return null;
+		}
+
+		String name = PACKAGE + type.getSimpleName() + "Invoker$" + COUNTER.incrementAndGet();
+		byte[] bytes = generateClass(name, listeners.length);
+
+		try {
+			Class<?> cls = new GeneratedClassLoader(type.getClassLoader()).define(name.replace('/', '.'), bytes);
+			Constructor<?> ctor = cls.getConstructor(Object[].class, Object.class);
+			return type.cast(ctor.newInstance(listeners, passResult));
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("Could not instantiate generated invoker for " + type.getName(), e);
+		}
+	}
+
+	private byte[] generateClass(String name, int count) {
+		String typeName = Type.getInternalName(type);
+		String typeDesc = Type.getDescriptor(type);
+		Type returnType = Type.getReturnType(method);
+
+		// Frames only ever merge values of identical types here, so no classes need to be loaded.
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+			@Override
+			protected String getCommonSuperClass(String type1, String type2) {
+				return OBJECT;
+			}
+		};
+
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null, OBJECT, new String[] { typeName });
+
+		for (int i = 0; i < count; i++) {
+			cw.visitField(ACC_PRIVATE | ACC_FINAL, "listener" + i, typeDesc, null, null).visitEnd();
+		}
+
+		boolean hasPass = returnType.getSort() != Type.VOID;
+
+		if (hasPass) {
+			cw.visitField(ACC_PRIVATE | ACC_FINAL, "pass", returnType.getDescriptor(), null, null).visitEnd();
+		}
+
+		// <init>(Object[] listeners, Object pass)
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;Ljava/lang/Object;)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+
+		for (int i = 0; i < count; i++) {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			pushInt(mv, i);
+			mv.visitInsn(AALOAD);
+			mv.visitTypeInsn(CHECKCAST, typeName);
+			mv.visitFieldInsn(PUTFIELD, name, "listener" + i, typeDesc);
+		}
+
+		if (hasPass) {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 2);
+			unbox(mv, returnType);
+			mv.visitFieldInsn(PUTFIELD, name, "pass", returnType.getDescriptor());
+		}
+
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// the listener method itself, unrolled
+		String methodDesc = Type.getMethodDescriptor(method);
+		Type[] args = Type.getArgumentTypes(method);
+		int resultSlot = 1;
+
+		for (Type arg : args) {
+			resultSlot += arg.getSize();
+		}
+
+		mv = cw.visitMethod(ACC_PUBLIC, method.getName(), methodDesc, null, null);
+		mv.visitCode();
+
+		for (int i = 0; i < count; i++) {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, name, "listener" + i, typeDesc);
+			int slot = 1;
+
+			for (Type arg : args) {
+				mv.visitVarInsn(arg.getOpcode(ILOAD), slot);
+				slot += arg.getSize();
+			}
+
+			mv.visitMethodInsn(INVOKEINTERFACE, typeName, method.getName(), methodDesc, true);
+
+			if (hasPass) {
+				Label next = new Label();
+				mv.visitVarInsn(returnType.getOpcode(ISTORE), resultSlot);
+				mv.visitVarInsn(returnType.getOpcode(ILOAD), resultSlot);
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitFieldInsn(GETFIELD, name, "pass", returnType.getDescriptor());
+				jumpIfEqual(mv, returnType, next);
+				mv.visitVarInsn(returnType.getOpcode(ILOAD), resultSlot);
+				mv.visitInsn(returnType.getOpcode(IRETURN));
+				mv.visitLabel(next);
+			}
+		}
+
+		if (hasPass) {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, name, "pass", returnType.getDescriptor());
+			mv.visitInsn(returnType.getOpcode(IRETURN));
+		} else {
+			mv.visitInsn(RETURN);
+		}
+
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void pushInt(MethodVisitor mv, int value) {
+		if (value <= 5) {
+			mv.visitInsn(ICONST_0 + value);
+		} else if (value <= Byte.MAX_VALUE) {
+			mv.visitIntInsn(BIPUSH, value);
+		} else if (value <= Short.MAX_VALUE) {
+			mv.visitIntInsn(SIPUSH, value);
+		} else {
+			mv.visitLdcInsn(value);
+		}
+	}
+
+	private static void jumpIfEqual(MethodVisitor mv, Type type, Label target) {
+		switch (type.getSort()) {
+		case Type.LONG:
+			mv.visitInsn(LCMP);
+			mv.visitJumpInsn(IFEQ, target);
+			break;
+		case Type.FLOAT:
+			mv.visitInsn(FCMPL);
+			mv.visitJumpInsn(IFEQ, target);
+			break;
+		case Type.DOUBLE:
+			mv.visitInsn(DCMPL);
+			mv.visitJumpInsn(IFEQ, target);
+			break;
+		case Type.OBJECT:
+		case Type.ARRAY:
+			mv.visitJumpInsn(IF_ACMPEQ, target);
+			break;
+		default:
+			mv.visitJumpInsn(IF_ICMPEQ, target);
+		}
+	}
+
+	private static void unbox(MethodVisitor mv, Type type) {
+		if (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY) {
+			mv.visitTypeInsn(CHECKCAST, type.getInternalName());
+			return;
+		}
+
+		String owner;
+
+		switch (type.getSort()) {
+		case Type.BOOLEAN: owner = "java/lang/Boolean"; break;
+		case Type.CHAR: owner = "java/lang/Character"; break;
+		case Type.BYTE: owner = "java/lang/Byte"; break;
+		case Type.SHORT: owner = "java/lang/Short"; break;
+		case Type.INT: owner = "java/lang/Integer"; break;
+		case Type.FLOAT: owner = "java/lang/Float"; break;
+		case Type.LONG: owner = "java/lang/Long"; break;
+		default: owner = "java/lang/Double"; break;
+		}
+
+		mv.visitTypeInsn(CHECKCAST, owner);
+		mv.visitMethodInsn(INVOKEVIRTUAL, owner, type.getClassName() + "Value", "()" + type.getDescriptor(), false);
+	}
+
+	private static Class<?> wrap(Class<?> primitive) {
+		if (primitive == boolean.class) return Boolean.class;
+		if (primitive == char.class) return Character.class;
+		if (primitive == byte.class) return Byte.class;
+		if (primitive == short.class) return Short.class;
+		if (primitive == int.class) return Integer.class;
+		if (primitive == float.class) return Float.class;
+		if (primitive == long.class) return Long.class;
+		return Double.class;
+	}
+
+	private static final class GeneratedClassLoader extends ClassLoader {
+		private GeneratedClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		private Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.event;
+
+import net.fabricmc.fabric.api.event.metrics.ListenerTimer;
+
+/**
+ * The base class of the timing wrappers spun by {@link TimedListenerGenerator}.
+ * <p>
+ * This has to be public, as the wrappers are defined in their own class loader.
+ */
+public abstract class TimedListener {
+	protected final Object listener;
+	protected final ListenerTimer timer;
+
+	protected TimedListener(Object listener, ListenerTimer timer) {
+		this.listener = listener;
+		this.timer = timer;
+	}
+
+	@Override
+	public String toString() {
+		return listener.toString();
+	}
+}
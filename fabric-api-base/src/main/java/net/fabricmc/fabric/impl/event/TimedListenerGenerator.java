@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.event;
+
+import net.fabricmc.fabric.api.event.metrics.EventMetrics;
+import net.fabricmc.fabric.api.event.metrics.ListenerTimer;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spins wrappers reporting the time spent in the methods of listeners to a {@link ListenerTimer}.
+ * <p>
+ * One wrapper class is generated per listener type, which extends {@link TimedListener} and
+ * implements every abstract method of the type by timing a direct call to the listener, so
+ * that measuring listeners costs two {@link System#nanoTime()} calls rather than a reflective
+ * invocation. Listener types which the wrappers cannot implement, as they are not public, are
+ * wrapped into proxies by {@link TimedListenerHandler} instead.
+ */
+final class TimedListenerGenerator implements Opcodes {
+	private static final String OBJECT = "java/lang/Object";
+	private static final String PACKAGE = "net/fabricmc/fabric/impl/event/generated/";
+	private static final String BASE = Type.getInternalName(TimedListener.class);
+	private static final String TIMER = Type.getInternalName(ListenerTimer.class);
+	private static final AtomicInteger COUNTER = new AtomicInteger();
+	private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+		@Override
+		protected Constructor<?> computeValue(Class<?> type) {
+			return generate(type);
+		}
+	};
+
+	private TimedListenerGenerator() {
+
+	}
+
+	static <T> T[] wrap(Class<T> type, T[] listeners, EventMetrics metrics) {
+		if (!type.isInterface()) {
+			// Neither a wrapper nor a proxy can stand in for a class.
+			return listeners;
+		}
+
+		boolean generated = Modifier.isPublic(type.getModifiers());
+		T[] wrapped = listeners.clone();
+
+		for (int i = 0; i < wrapped.length; i++) {
+			ListenerTimer timer = metrics.getTimer(type, listeners[i]);
+
+			if (generated) {
+				try {
+					wrapped[i] = type.cast(CONSTRUCTORS.get(type).newInstance(listeners[i], timer));
+				} catch (ReflectiveOperationException e) {
+					throw new RuntimeException("Could not instantiate timing wrapper for " + type.getName(), e);
+				}
+			} else {
+				wrapped[i] = TimedListenerHandler.wrap(type, listeners[i], timer);
+			}
+		}
+
+		return wrapped;
+	}
+
+	/**
+	 * @return The wrapped listener if the given object is a timing wrapper or proxy, or the object itself.
+	 */
+	static Object unwrap(Object listener) {
+		if (listener instanceof TimedListener) {
+			return ((TimedListener) listener).listener;
+		}
+
+		return TimedListenerHandler.unwrap(listener);
+	}
+
+	private static Constructor<?> generate(Class<?> type) {
+		String name = PACKAGE + type.getSimpleName() + "Timer$" + COUNTER.incrementAndGet();
+		byte[] bytes = generateClass(type, name);
+
+		try {
+			Class<?> cls = new GeneratedClassLoader(type.getClassLoader()).define(name.replace('/', '.'), bytes);
+			return cls.getConstructor(Object.class, ListenerTimer.class);
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("Could not generate timing wrapper for " + type.getName(), e);
+		}
+	}
+
+	private static byte[] generateClass(Class<?> type, String name) {
+		String typeName = Type.getInternalName(type);
+
+		// Frames only ever merge values of identical types here, so no classes need to be loaded.
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+			@Override
+			protected String getCommonSuperClass(String type1, String type2) {
+				return OBJECT;
+			}
+		};
+
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null, BASE, new String[] { typeName });
+
+		// <init>(Object listener, ListenerTimer timer)
+		String ctorDesc = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Object.class), Type.getType(ListenerTimer.class));
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", ctorDesc, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", ctorDesc, false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		Set<String> generated = new HashSet<>();
+
+		for (Method method : type.getMethods()) {
+			String desc = Type.getMethodDescriptor(method);
+
+			// the same method may be inherited from several interfaces
+			if (Modifier.isAbstract(method.getModifiers()) && !isObjectMethod(method) && generated.add(method.getName() + desc)) {
+				generateMethod(cw, name, typeName, method);
+			}
+		}
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Generate a listener method, as:
+	 * <pre>
+	 * long start = System.nanoTime();
+	 * try {
+	 *     return ((Type) listener).method(args);
+	 * } finally {
+	 *     timer.record(System.nanoTime() - start);
+	 * }
+	 * </pre>
+	 */
+	private static void generateMethod(ClassWriter cw, String name, String typeName, Method method) {
+		String desc = Type.getMethodDescriptor(method);
+		Type returnType = Type.getReturnType(method);
+		Type[] args = Type.getArgumentTypes(method);
+		int startSlot = 1;
+
+		for (Type arg : args) {
+			startSlot += arg.getSize();
+		}
+
+		int resultSlot = startSlot + 2;
+		int exceptionSlot = resultSlot + returnType.getSize();
+		boolean hasResult = returnType.getSort() != Type.VOID;
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, method.getName(), desc, null, null);
+		mv.visitCode();
+
+		Label tryStart = new Label();
+		Label tryEnd = new Label();
+		Label handler = new Label();
+		mv.visitTryCatchBlock(tryStart, tryEnd, handler, null);
+
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+		mv.visitVarInsn(LSTORE, startSlot);
+
+		mv.visitLabel(tryStart);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, name, "listener", "Ljava/lang/Object;");
+		mv.visitTypeInsn(CHECKCAST, typeName);
+		int slot = 1;
+
+		for (Type arg : args) {
+			mv.visitVarInsn(arg.getOpcode(ILOAD), slot);
+			slot += arg.getSize();
+		}
+
+		mv.visitMethodInsn(INVOKEINTERFACE, typeName, method.getName(), desc, true);
+		mv.visitLabel(tryEnd);
+
+		if (hasResult) {
+			mv.visitVarInsn(returnType.getOpcode(ISTORE), resultSlot);
+		}
+
+		record(mv, name, startSlot);
+
+		if (hasResult) {
+			mv.visitVarInsn(returnType.getOpcode(ILOAD), resultSlot);
+		}
+
+		mv.visitInsn(returnType.getOpcode(IRETURN));
+
+		// listeners throwing are still measured
+		mv.visitLabel(handler);
+		mv.visitVarInsn(ASTORE, exceptionSlot);
+		record(mv, name, startSlot);
+		mv.visitVarInsn(ALOAD, exceptionSlot);
+		mv.visitInsn(ATHROW);
+
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static void record(MethodVisitor mv, String name, int startSlot) {
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, name, "timer", "L" + TIMER + ";");
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+		mv.visitVarInsn(LLOAD, startSlot);
+		mv.visitInsn(LSUB);
+		mv.visitMethodInsn(INVOKEINTERFACE, TIMER, "record", "(J)V", true);
+	}
+
+	private static boolean isObjectMethod(Method method) {
+		try {
+			Object.class.getMethod(method.getName(), method.getParameterTypes());
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Resolves classes through the listener type's class loader first, and through the loader of
+	 * this class otherwise, as the wrappers need both the listener type and {@link TimedListener}.
+	 */
+	private static final class GeneratedClassLoader extends ClassLoader {
+		private GeneratedClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			return Class.forName(name, false, TimedListenerGenerator.class.getClassLoader());
+		}
+
+		private Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
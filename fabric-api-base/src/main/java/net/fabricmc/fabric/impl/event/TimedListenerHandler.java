@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.event;
+
+import net.fabricmc.fabric.api.event.metrics.ListenerTimer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+
+/**
+ * Wraps listeners into proxies reporting the time spent in their
+ * listener method to a {@link ListenerTimer}.
+ * <p>
+ * Only used for listener types which are not public, which the wrappers
+ * generated by {@link TimedListenerGenerator} cannot implement.
+ */
+final class TimedListenerHandler implements InvocationHandler {
+	private final Object listener;
+	private final ListenerTimer timer;
+
+	private TimedListenerHandler(Object listener, ListenerTimer timer) {
+		this.listener = listener;
+		this.timer = timer;
+	}
+
+	static <T> T wrap(Class<T> type, T listener, ListenerTimer timer) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, new TimedListenerHandler(listener, timer)));
+	}
+
+	/**
+	 * @return The wrapped listener if the given object is a timing proxy, or the object itself.
+	 */
+	static Object unwrap(Object listener) {
+		if (Proxy.isProxyClass(listener.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(listener);
+
+			if (handler instanceof TimedListenerHandler) {
+				return ((TimedListenerHandler) handler).listener;
+			}
+		}
+
+		return listener;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (!Modifier.isAbstract(method.getModifiers())) {
+			// Object methods and default methods are not listener invocations.
+			return invoke(method, args);
+		}
+
+		long start = System.nanoTime();
+
+		try {
+			return invoke(method, args);
+		} finally {
+			timer.record(System.nanoTime() - start);
+		}
+	}
+
+	private Object invoke(Method method, Object[] args) throws Throwable {
+		if (!method.isAccessible()) {
+			// methods of non-public interfaces cannot be invoked reflectively otherwise
+			method.setAccessible(true);
+		}
+
+		try {
+			return method.invoke(listener, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.benchmark.event;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures emitting array-backed events through their invoker.
+ * <p>
+ * Generated invokers are only used while profiling is disabled, so the
+ * "generated" backend with profiling enabled measures the fallback path.
+ */
+@State(Scope.Thread)
+public class EventDispatchBenchmark {
+	@Param({"0", "1", "8", "64"})
+	public int listenerCount;
+
+	@Param({"array", "generated"})
+	public String backend;
+
+	@Param({"false", "true"})
+	public boolean profiling;
+
+	private Event<TickListener> tickEvent;
+	private Event<InteractListener> interactEvent;
+	private final TickContext context = new TickContext();
+
+	@Setup
+	public void setup() {
+		EventFactory.setProfilingEnabled(profiling);
+
+		if (backend.equals("generated")) {
+			tickEvent = EventFactory.createGenerated(TickListener.class, null, TickListener.INVOKER_FACTORY);
+			interactEvent = EventFactory.createGenerated(InteractListener.class, InteractListener.PASS, InteractListener.INVOKER_FACTORY);
+		} else {
+			tickEvent = EventFactory.createArrayBacked(TickListener.class, TickListener.INVOKER_FACTORY);
+			interactEvent = EventFactory.createArrayBacked(InteractListener.class, InteractListener.INVOKER_FACTORY);
+		}
+
+		for (int i = 0; i < listenerCount; i++) {
+			tickEvent.register(TickListener.DISTINCT[i % TickListener.DISTINCT.length]);
+			interactEvent.register(InteractListener.DISTINCT[i % InteractListener.DISTINCT.length]);
+		}
+	}
+
+	@Benchmark
+	public int tick() {
+		tickEvent.invoker().tick(context);
+		return context.ticks;
+	}
+
+	@Benchmark
+	public Object interact() {
+		return interactEvent.invoker().interact(context, 0);
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.benchmark.event;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link EventFactory#invalidate()}, which rebuilds the invoker of every array-backed event.
+ */
+@State(Scope.Benchmark)
+public class EventInvalidateBenchmark {
+	@Param({"10", "100"})
+	public int eventCount;
+
+	@Param({"8"})
+	public int listenerCount;
+
+	@Param({"array", "generated"})
+	public String backend;
+
+	@Setup
+	public void setup() {
+		EventFactory.setProfilingEnabled(false);
+
+		for (int i = 0; i < eventCount; i++) {
+			Event<TickListener> event;
+
+			if (backend.equals("generated")) {
+				event = EventFactory.createGenerated(TickListener.class, null, TickListener.INVOKER_FACTORY);
+			} else {
+				event = EventFactory.createArrayBacked(TickListener.class, TickListener.INVOKER_FACTORY);
+			}
+
+			for (int j = 0; j < listenerCount; j++) {
+				event.register(TickListener.DISTINCT[j % TickListener.DISTINCT.length]);
+			}
+		}
+	}
+
+	@Benchmark
+	public void invalidate() {
+		EventFactory.invalidate();
+	}
+}
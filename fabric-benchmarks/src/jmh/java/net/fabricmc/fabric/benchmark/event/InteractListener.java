@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.benchmark.event;
+
+import java.util.function.Function;
+
+/**
+ * Mirrors the shape of {@code UseBlockCallback}, with early exit on the first non-pass result.
+ */
+public interface InteractListener {
+	Object PASS = new Object();
+
+	/**
+	 * The invoker factory used by {@code UseBlockCallback}.
+	 */
+	Function<InteractListener[], InteractListener> INVOKER_FACTORY = (listeners) -> (context, hand) -> {
+		for (InteractListener event : listeners) {
+			Object result = event.interact(context, hand);
+			if (result != PASS) {
+				return result;
+			}
+		}
+
+		return PASS;
+	};
+
+	/**
+	 * Distinct listener classes which all pass, so that every listener is called.
+	 */
+	InteractListener[] DISTINCT = new InteractListener[] {
+		(context, hand) -> hand == 1 ? context : PASS,
+		(context, hand) -> hand == 2 ? context : PASS,
+		(context, hand) -> hand == 3 ? context : PASS,
+		(context, hand) -> hand == 4 ? context : PASS,
+		(context, hand) -> context.ticks == -1 ? context : PASS,
+		(context, hand) -> context.ticks == -2 ? context : PASS,
+		(context, hand) -> context.ticks == -3 ? context : PASS,
+		(context, hand) -> context.ticks == -4 ? context : PASS
+	};
+
+	Object interact(TickContext context, int hand);
+}
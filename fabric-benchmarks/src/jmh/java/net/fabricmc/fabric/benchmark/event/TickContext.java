@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.benchmark.event;
+
+/**
+ * Stands in for the server passed to tick callbacks, with a minimal profiler
+ * so that the profiled invoker style can be measured without a running game.
+ */
+public final class TickContext {
+	int ticks;
+	private int depth;
+	private String section;
+
+	public TickContext getProfiler() {
+		return this;
+	}
+
+	public void push(String section) {
+		this.section = section;
+		depth++;
+	}
+
+	public void pop() {
+		depth--;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public String getSection() {
+		return section;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.benchmark.event;
+
+import net.fabricmc.fabric.api.event.EventFactory;
+
+import java.util.function.Function;
+
+/**
+ * Mirrors the shape of {@code ServerTickCallback}.
+ */
+public interface TickListener {
+	/**
+	 * The invoker factory used by {@code ServerTickCallback}, profiling included.
+	 */
+	Function<TickListener[], TickListener> INVOKER_FACTORY = (listeners) -> {
+		if (EventFactory.isProfilingEnabled()) {
+			return (context) -> {
+				context.getProfiler().push("fabricServerTick");
+				for (TickListener event : listeners) {
+					context.getProfiler().push(EventFactory.getHandlerName(event));
+					event.tick(context);
+					context.getProfiler().pop();
+				}
+				context.getProfiler().pop();
+			};
+		} else {
+			return (context) -> {
+				for (TickListener event : listeners) {
+					event.tick(context);
+				}
+			};
+		}
+	};
+
+	/**
+	 * Distinct listener classes, so that call sites see as many receiver types as they would in a modded game.
+	 */
+	TickListener[] DISTINCT = new TickListener[] {
+		(context) -> context.ticks += 1,
+		(context) -> context.ticks += 2,
+		(context) -> context.ticks += 3,
+		(context) -> context.ticks += 4,
+		(context) -> context.ticks ^= 5,
+		(context) -> context.ticks ^= 6,
+		(context) -> context.ticks ^= 7,
+		(context) -> context.ticks ^= 8
+	};
+
+	void tick(TickContext context);
+}
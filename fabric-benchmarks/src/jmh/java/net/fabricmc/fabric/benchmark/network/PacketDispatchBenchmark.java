@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.benchmark.network;
+
+import net.fabricmc.fabric.impl.network.ChannelIds;
+import net.fabricmc.fabric.impl.network.PacketTypes;
+import net.minecraft.util.Identifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures resolving the handler of a received custom payload.
+ * <p>
+ * "map" is the lookup used before channels were interned: the channel is compared against
+ * REGISTER and UNREGISTER, then looked up in the handler map. "interned" resolves the
+ * channel's raw id once, compares it against the raw ids of REGISTER and UNREGISTER, and
+ * indexes the handler array with it.
+ * <p>
+ * Both include creating the received channel identifier, as reading it from a packet would.
+ */
+@State(Scope.Thread)
+public class PacketDispatchBenchmark {
+	private static final int REGISTER_RAW_ID = ChannelIds.getOrCreate(PacketTypes.REGISTER);
+	private static final int UNREGISTER_RAW_ID = ChannelIds.getOrCreate(PacketTypes.UNREGISTER);
+
+	@Param({"8", "64", "512"})
+	public int channelCount;
+
+	private final Map<Identifier, Object> handlers = new LinkedHashMap<>();
+	private Object[] handlersByRawId = new Object[0];
+	private Identifier[] channels;
+	private int next;
+
+	@Setup
+	public void setup() {
+		channels = new Identifier[channelCount];
+
+		for (int i = 0; i < channelCount; i++) {
+			Identifier id = new Identifier("benchmark", "channel_" + i);
+			Object handler = new Object();
+			int rawId = ChannelIds.getOrCreate(id);
+
+			if (rawId >= handlersByRawId.length) {
+				handlersByRawId = Arrays.copyOf(handlersByRawId, Math.max(rawId + 1, handlersByRawId.length * 2));
+			}
+
+			channels[i] = id;
+			handlers.put(id, handler);
+			handlersByRawId[rawId] = handler;
+		}
+	}
+
+	private Identifier nextReceived() {
+		Identifier id = channels[next];
+		next = next + 1 < channels.length ? next + 1 : 0;
+		// copy the strings too, as the hash codes of a freshly read channel are not cached yet
+		return new Identifier(new String(id.getNamespace().toCharArray()), new String(id.getPath().toCharArray()));
+	}
+
+	@Benchmark
+	public Object map() {
+		Identifier id = nextReceived();
+
+		if (id.equals(PacketTypes.REGISTER) || id.equals(PacketTypes.UNREGISTER)) {
+			return null;
+		}
+
+		return handlers.get(id);
+	}
+
+	@Benchmark
+	public Object interned() {
+		Identifier id = nextReceived();
+		int rawId = ChannelIds.get(id);
+
+		if (rawId == REGISTER_RAW_ID || rawId == UNREGISTER_RAW_ID) {
+			return null;
+		}
+
+		Object[] handlersByRawId = this.handlersByRawId;
+		return rawId >= 0 && rawId < handlersByRawId.length ? handlersByRawId[rawId] : handlers.get(id);
+	}
+}
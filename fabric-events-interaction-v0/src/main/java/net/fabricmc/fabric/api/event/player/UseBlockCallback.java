@@ -34,7 +34,7 @@ import net.minecraft.world.World;
  * - FAIL cancels further processing and does not send a packet to the server.
  */
 public interface UseBlockCallback {
-	public static final Event<UseBlockCallback> EVENT = EventFactory.createArrayBacked(UseBlockCallback.class,
+	public static final Event<UseBlockCallback> EVENT = EventFactory.createGenerated(UseBlockCallback.class, ActionResult.PASS,
 		(listeners) -> (player, world, hand, hitResult) -> {
 			for (UseBlockCallback event : listeners) {
 				ActionResult result = event.interact(player, world, hand, hitResult);
@@ -21,7 +21,7 @@ import net.fabricmc.fabric.api.event.EventFactory;
 import net.minecraft.client.MinecraftClient;
 
 public interface ClientTickCallback {
-	public static final Event<ClientTickCallback> EVENT = EventFactory.createArrayBacked(ClientTickCallback.class,
+	public static final Event<ClientTickCallback> EVENT = EventFactory.createGenerated(ClientTickCallback.class, null,
 		(listeners) -> {
 			if (EventFactory.isProfilingEnabled()) {
 				return (client) -> {
@@ -21,7 +21,7 @@ import net.fabricmc.fabric.api.event.EventFactory;
 import net.minecraft.server.MinecraftServer;
 
 public interface ServerTickCallback {
-	public static final Event<ServerTickCallback> EVENT = EventFactory.createArrayBacked(ServerTickCallback.class,
+	public static final Event<ServerTickCallback> EVENT = EventFactory.createGenerated(ServerTickCallback.class, null,
 		(listeners) -> {
 			if (EventFactory.isProfilingEnabled()) {
 				return (server) -> {
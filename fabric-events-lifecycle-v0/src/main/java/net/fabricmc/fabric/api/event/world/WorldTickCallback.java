@@ -21,7 +21,7 @@ import net.fabricmc.fabric.api.event.EventFactory;
 import net.minecraft.world.World;
 
 public interface WorldTickCallback {
-	public static final Event<WorldTickCallback> EVENT = EventFactory.createArrayBacked(WorldTickCallback.class,
+	public static final Event<WorldTickCallback> EVENT = EventFactory.createGenerated(WorldTickCallback.class, null,
 		(listeners) -> {
 			if (EventFactory.isProfilingEnabled()) {
 				return (world) -> {
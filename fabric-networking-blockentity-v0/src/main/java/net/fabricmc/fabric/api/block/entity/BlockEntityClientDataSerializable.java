@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.block.entity;
+
+import net.minecraft.util.PacketByteBuf;
+
+/**
+ * Implement this interface on a BlockEntity which you would like to be synchronized
+ * with the client side as raw binary data instead of NBT.
+ * <p>
+ * The data is written when the block entity's chunk is sent to a player and when the
+ * block entity is synced through {@link BlockEntitySyncScheduler} (or vanilla block
+ * updates); chunk data packets only carry the block entity's id and position then.
+ * For this to work, the block entity should not override {@code toInitialChunkDataTag}.
+ * <p>
+ * This interface takes precedence over {@link BlockEntityClientSerializable} if both
+ * are implemented.
+ */
+public interface BlockEntityClientDataSerializable {
+	/**
+	 * Read the data written by {@link #writeClientData}, on the client.
+	 */
+	void readClientData(PacketByteBuf buf);
+
+	/**
+	 * Write the data to be synchronized to the clients, on the server.
+	 */
+	void writeClientData(PacketByteBuf buf);
+}
@@ -16,6 +16,7 @@
 
 package net.fabricmc.fabric.api.block.entity;
 
+import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.nbt.CompoundTag;
 
 /**
@@ -26,4 +27,23 @@ public interface BlockEntityClientSerializable {
 	void fromClientTag(CompoundTag tag);
 
 	CompoundTag toClientTag(CompoundTag tag);
+
+	/**
+	 * Create the coarser tag sent instead of the client tag to players out of the block entity's
+	 * {@link BlockEntitySyncScheduler#getSyncRadius sync radius}. {@link #fromClientTag} receives
+	 * it as is, so it should only leave out what the client can do without.
+	 *
+	 * @return The tag, or null if distant players should get no updates at all (the default).
+	 */
+	default CompoundTag toDistantClientTag(CompoundTag tag) {
+		return null;
+	}
+
+	/**
+	 * Schedule a sync of this block entity to the players watching it,
+	 * see {@link BlockEntitySyncScheduler}. Only callable on the server thread.
+	 */
+	default void sync() {
+		BlockEntitySyncScheduler.INSTANCE.schedule((BlockEntity) this);
+	}
 }
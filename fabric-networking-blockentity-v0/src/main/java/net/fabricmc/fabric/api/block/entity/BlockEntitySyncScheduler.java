@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.block.entity;
+
+import net.fabricmc.fabric.impl.block.entity.BlockEntitySyncSchedulerImpl;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.BlockEntityType;
+
+/**
+ * Coalesces the client syncs of {@link BlockEntityClientSerializable} and
+ * {@link BlockEntityClientDataSerializable} block entities.
+ * <p>
+ * Scheduled syncs are deduplicated per block entity and flushed at the end of the
+ * server tick, at most once every {@link #getInterval sync interval} of the block
+ * entity's type. The updates of all block entities of a chunk flushed together are
+ * sent to each player watching it in a single packet (one for the NBT updates and one for
+ * the binary data). Block updates sent by vanilla
+ * go through the scheduler as well.
+ * <p>
+ * The scheduler may only be used on the server thread.
+ */
+public interface BlockEntitySyncScheduler {
+	BlockEntitySyncScheduler INSTANCE = BlockEntitySyncSchedulerImpl.INSTANCE;
+
+	/**
+	 * Schedule a sync of the given block entity to the players watching it.
+	 *
+	 * @param blockEntity The block entity, which must be in a server world.
+	 */
+	void schedule(BlockEntity blockEntity);
+
+	/**
+	 * Set the minimum number of ticks between two syncs of block entities of the given type.
+	 *
+	 * @param type  The block entity type.
+	 * @param ticks The interval, at least 1.
+	 */
+	void setInterval(BlockEntityType<?> type, int ticks);
+
+	/**
+	 * @return The minimum number of ticks between two syncs of block entities of the given type, 1 by default.
+	 */
+	int getInterval(BlockEntityType<?> type);
+
+	/**
+	 * Set the distance from block entities of the given type beyond which watching players
+	 * do not get their updates anymore. Such players only get the
+	 * {@link BlockEntityClientSerializable#toDistantClientTag distant client tag}, if any,
+	 * and are caught up with a full sync once they come within the radius again.
+	 *
+	 * @param type   The block entity type.
+	 * @param radius The radius in blocks, positive.
+	 */
+	void setSyncRadius(BlockEntityType<?> type, double radius);
+
+	/**
+	 * @return The sync radius of block entities of the given type, infinite by default.
+	 */
+	double getSyncRadius(BlockEntityType<?> type);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.block.entity;
+
+/**
+ * Implement this interface instead of {@link BlockEntityClientSerializable} on a BlockEntity
+ * whose client tag is large but only changes a few keys at a time.
+ * <p>
+ * The last client tag sent for the block entity is kept, and updates only carry the
+ * top-level keys which were added, changed or removed since then; the client merges
+ * them into its own copy of the tag before passing it to {@link #fromClientTag}.
+ * Full tags are still sent periodically, whenever the block entity's chunk is sent
+ * to a player, and after an update which did not reach every player watching the block
+ * entity, so that every client is brought back in sync. Update packets built through
+ * {@code toUpdatePacket()} always carry the full tag.
+ * <p>
+ * As the sent tag is kept for comparison, {@link #toClientTag} must not put tags into it
+ * which are later modified by the block entity.
+ */
+public interface DeltaBlockEntityClientSerializable extends BlockEntityClientSerializable {
+	/**
+	 * @return The number of ticks after which the full client tag is sent again
+	 * instead of a delta.
+	 */
+	default int getFullSyncInterval() {
+		return 200;
+	}
+}
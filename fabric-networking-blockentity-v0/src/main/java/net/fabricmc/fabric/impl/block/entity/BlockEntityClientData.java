@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.block.entity;
+
+import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientDataSerializable;
+import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+import net.minecraft.util.registry.Registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes the data of {@link BlockEntityClientDataSerializable} block entities.
+ * <p>
+ * A {@link #DATA} payload holds the number of block entities, followed by the position,
+ * raw type id and length-prefixed data of each, so that the client can skip the data of
+ * block entities it does not have (anymore).
+ */
+public final class BlockEntityClientData {
+	public static final Identifier DATA = new Identifier("fabric", "block_entity_data");
+
+	private BlockEntityClientData() {
+
+	}
+
+	public static PacketByteBuf write(Collection<BlockEntity> blockEntities) {
+		PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+		PacketByteBuf scratch = new PacketByteBuf(Unpooled.buffer());
+		buf.writeVarInt(blockEntities.size());
+
+		for (BlockEntity blockEntity : blockEntities) {
+			scratch.clear();
+			((BlockEntityClientDataSerializable) blockEntity).writeClientData(scratch);
+
+			buf.writeBlockPos(blockEntity.getPos());
+			buf.writeVarInt(Registry.BLOCK_ENTITY.getRawId(blockEntity.getType()));
+			buf.writeVarInt(scratch.readableBytes());
+			buf.writeBytes(scratch);
+		}
+
+		scratch.release();
+		return buf;
+	}
+
+	/**
+	 * Send the data of the {@link BlockEntityClientDataSerializable} block entities among the given ones to a player,
+	 * after their chunk was sent to them.
+	 */
+	public static void sendChunkData(ServerPlayerEntity player, Collection<BlockEntity> blockEntities) {
+		List<BlockEntity> dataBlockEntities = null;
+
+		for (BlockEntity blockEntity : blockEntities) {
+			if (blockEntity instanceof BlockEntityClientDataSerializable) {
+				if (dataBlockEntities == null) {
+					dataBlockEntities = new ArrayList<>();
+				}
+
+				dataBlockEntities.add(blockEntity);
+			}
+		}
+
+		if (dataBlockEntities != null && ServerSidePacketRegistry.INSTANCE.canPlayerReceive(player, DATA)) {
+			ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, DATA, write(dataBlockEntities));
+		}
+	}
+}
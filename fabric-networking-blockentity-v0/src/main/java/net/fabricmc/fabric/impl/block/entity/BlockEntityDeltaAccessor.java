@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.block.entity;
+
+import net.minecraft.nbt.CompoundTag;
+
+/**
+ * The delta sync state of a block entity. On the server, this is the last client tag sent;
+ * on the client, the last client tag received, into which deltas are merged.
+ */
+public interface BlockEntityDeltaAccessor {
+	CompoundTag fabric_getSyncedTag();
+
+	void fabric_setSyncedTag(CompoundTag tag);
+
+	long fabric_getLastFullSync();
+
+	void fabric_setLastFullSync(long time);
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.block.entity;
+
+import net.fabricmc.fabric.api.block.entity.DeltaBlockEntityClientSerializable;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.network.packet.BlockEntityUpdateS2CPacket;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Objects;
+
+/**
+ * Computes and applies the deltas of {@link DeltaBlockEntityClientSerializable} block entities.
+ * <p>
+ * A delta tag holds the block entity type's "id", the added or changed top-level keys
+ * under "set", and the removed keys under "removed".
+ */
+public final class BlockEntityDeltaSync {
+	/**
+	 * Update packet action id of full client tags.
+	 */
+	public static final int FULL_ACTION_ID = 127;
+	/**
+	 * Update packet action id of delta tags. Clients which do not know about deltas ignore it.
+	 */
+	public static final int DELTA_ACTION_ID = 126;
+
+	private static final int STRING_TYPE = 8;
+
+	private BlockEntityDeltaSync() {
+
+	}
+
+	/**
+	 * @return True if the full tag should be sent to the clients instead of a delta.
+	 */
+	public static boolean needsFullSync(DeltaBlockEntityClientSerializable serializable, BlockEntityDeltaAccessor accessor, long time) {
+		return accessor.fabric_getSyncedTag() == null || time - accessor.fabric_getLastFullSync() >= serializable.getFullSyncInterval();
+	}
+
+	/**
+	 * Create the update packet of a block entity: a delta against the last client tag sent if possible,
+	 * or the full tag otherwise. The last client tag sent is left as is, see {@link #onSent}.
+	 *
+	 * @param tag The block entity's current client tag.
+	 * @return The update packet, or null if nothing changed.
+	 */
+	public static BlockEntityUpdateS2CPacket createUpdatePacket(DeltaBlockEntityClientSerializable serializable, CompoundTag tag, long time) {
+		BlockEntityDeltaAccessor accessor = (BlockEntityDeltaAccessor) serializable;
+		BlockPos pos = ((BlockEntity) serializable).getPos();
+
+		if (!needsFullSync(serializable, accessor, time)) {
+			CompoundTag delta = diff(tag.getString("id"), accessor.fabric_getSyncedTag(), tag);
+			return delta != null ? new BlockEntityUpdateS2CPacket(pos, DELTA_ACTION_ID, delta) : null;
+		}
+
+		accessor.fabric_setLastFullSync(time);
+		return new BlockEntityUpdateS2CPacket(pos, FULL_ACTION_ID, tag);
+	}
+
+	/**
+	 * Advance the base of the following deltas, once an update was sent.
+	 *
+	 * @param tag        The client tag the update was created from.
+	 * @param allWatched Whether the update reached every player watching the block entity. If not,
+	 *                   the players which missed it do not have the base, and the next update is a full tag.
+	 */
+	public static void onSent(DeltaBlockEntityClientSerializable serializable, CompoundTag tag, boolean allWatched) {
+		((BlockEntityDeltaAccessor) serializable).fabric_setSyncedTag(allWatched ? tag : null);
+	}
+
+	/**
+	 * @return The delta between the two tags, or null if they are equal.
+	 */
+	public static CompoundTag diff(String id, CompoundTag previous, CompoundTag current) {
+		CompoundTag set = new CompoundTag();
+		ListTag removed = new ListTag();
+
+		for (String key : current.getKeys()) {
+			Tag tag = current.getTag(key);
+
+			if (!Objects.equals(tag, previous.getTag(key))) {
+				set.put(key, tag);
+			}
+		}
+
+		for (String key : previous.getKeys()) {
+			if (!current.containsKey(key)) {
+				removed.add(new StringTag(key));
+			}
+		}
+
+		if (set.isEmpty() && removed.isEmpty()) {
+			return null;
+		}
+
+		CompoundTag delta = new CompoundTag();
+		delta.putString("id", id);
+		delta.put("set", set);
+
+		if (!removed.isEmpty()) {
+			delta.put("removed", removed);
+		}
+
+		return delta;
+	}
+
+	/**
+	 * Merge a delta into the given tag.
+	 */
+	public static void apply(CompoundTag target, CompoundTag delta) {
+		CompoundTag set = delta.getCompound("set");
+
+		for (String key : set.getKeys()) {
+			target.put(key, set.getTag(key));
+		}
+
+		ListTag removed = delta.getList("removed", STRING_TYPE);
+
+		for (int i = 0; i < removed.size(); i++) {
+			target.remove(removed.getString(i));
+		}
+	}
+}
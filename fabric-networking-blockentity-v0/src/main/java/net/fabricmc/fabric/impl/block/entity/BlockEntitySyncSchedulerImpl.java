@@ -0,0 +1,514 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.block.entity;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2DoubleMap;
+import it.unimi.dsi.fastutil.objects.Object2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientDataSerializable;
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientSerializable;
+import net.fabricmc.fabric.api.block.entity.BlockEntitySyncScheduler;
+import net.fabricmc.fabric.api.block.entity.DeltaBlockEntityClientSerializable;
+import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.fabricmc.fabric.api.server.PlayerStream;
+import net.fabricmc.fabric.mixin.networkingblockentity.BlockEntityUpdateS2CPacketAccessor;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.BlockEntityType;
+import net.minecraft.client.network.packet.BlockEntityUpdateS2CPacket;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.Packet;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+public final class BlockEntitySyncSchedulerImpl implements BlockEntitySyncScheduler {
+	public static final BlockEntitySyncSchedulerImpl INSTANCE = new BlockEntitySyncSchedulerImpl();
+	/**
+	 * Carries the updates of several block entities of one chunk, see {@link #writeUpdates}.
+	 */
+	public static final Identifier UPDATES = new Identifier("fabric", "block_entity_updates");
+
+	// replaced rather than modified, so that lookups from any thread need no locking
+	private volatile Object2IntMap<BlockEntityType<?>> intervals = createIntervals(null);
+	private volatile Object2DoubleMap<BlockEntityType<?>> radii = createRadii(null);
+	private final Map<ServerWorld, Set<BlockEntity>> pending = new IdentityHashMap<>();
+	/**
+	 * The block entities each player missed updates of, because they were out of their sync radius.
+	 */
+	private final Map<ServerPlayerEntity, StaleBlockEntities> stale = new IdentityHashMap<>();
+
+	private BlockEntitySyncSchedulerImpl() {
+
+	}
+
+	private static Object2IntMap<BlockEntityType<?>> createIntervals(Object2IntMap<BlockEntityType<?>> previous) {
+		Object2IntMap<BlockEntityType<?>> intervals = previous != null ? new Object2IntOpenHashMap<>(previous) : new Object2IntOpenHashMap<>();
+		intervals.defaultReturnValue(1);
+		return intervals;
+	}
+
+	private static Object2DoubleMap<BlockEntityType<?>> createRadii(Object2DoubleMap<BlockEntityType<?>> previous) {
+		Object2DoubleMap<BlockEntityType<?>> radii = previous != null ? new Object2DoubleOpenHashMap<>(previous) : new Object2DoubleOpenHashMap<>();
+		radii.defaultReturnValue(Double.POSITIVE_INFINITY);
+		return radii;
+	}
+
+	@Override
+	public void schedule(BlockEntity blockEntity) {
+		World world = blockEntity.getWorld();
+
+		if (!(world instanceof ServerWorld)) {
+			throw new IllegalStateException("Cannot sync " + blockEntity + " outside of a server world!");
+		}
+
+		pending.computeIfAbsent((ServerWorld) world, (w) -> new LinkedHashSet<>()).add(blockEntity);
+	}
+
+	@Override
+	public void setInterval(BlockEntityType<?> type, int ticks) {
+		if (ticks < 1) {
+			throw new IllegalArgumentException("Sync interval must be at least 1 tick, got " + ticks + "!");
+		}
+
+		synchronized (this) {
+			Object2IntMap<BlockEntityType<?>> intervals = createIntervals(this.intervals);
+			intervals.put(type, ticks);
+			this.intervals = intervals;
+		}
+	}
+
+	@Override
+	public int getInterval(BlockEntityType<?> type) {
+		return intervals.getInt(type);
+	}
+
+	@Override
+	public void setSyncRadius(BlockEntityType<?> type, double radius) {
+		if (!(radius > 0)) {
+			throw new IllegalArgumentException("Sync radius must be positive, got " + radius + "!");
+		}
+
+		synchronized (this) {
+			Object2DoubleMap<BlockEntityType<?>> radii = createRadii(this.radii);
+			radii.put(type, radius);
+			this.radii = radii;
+		}
+	}
+
+	@Override
+	public double getSyncRadius(BlockEntityType<?> type) {
+		return radii.getDouble(type);
+	}
+
+	/**
+	 * Send the updates of all scheduled block entities whose interval elapsed, and catch up
+	 * the players which came within the sync radius of block entities they missed updates of.
+	 * Called at the end of the server tick.
+	 */
+	public void flush() {
+		if (!stale.isEmpty()) {
+			catchUp();
+		}
+
+		Iterator<Map.Entry<ServerWorld, Set<BlockEntity>>> worlds = pending.entrySet().iterator();
+
+		while (worlds.hasNext()) {
+			Map.Entry<ServerWorld, Set<BlockEntity>> entry = worlds.next();
+			flush(entry.getKey(), entry.getValue());
+
+			if (entry.getValue().isEmpty()) {
+				worlds.remove();
+			}
+		}
+	}
+
+	private void flush(ServerWorld world, Set<BlockEntity> blockEntities) {
+		long time = world.getTime();
+		Long2ObjectLinkedOpenHashMap<ChunkUpdates> updatesByChunk = new Long2ObjectLinkedOpenHashMap<>();
+		Iterator<BlockEntity> it = blockEntities.iterator();
+
+		while (it.hasNext()) {
+			BlockEntity blockEntity = it.next();
+
+			if (blockEntity.isInvalid() || blockEntity.getWorld() != world) {
+				it.remove();
+				continue;
+			}
+
+			BlockEntitySyncAccessor accessor = (BlockEntitySyncAccessor) blockEntity;
+			long lastSync = accessor.fabric_getLastScheduledSync();
+
+			if (lastSync != Long.MIN_VALUE && time - lastSync < getInterval(blockEntity.getType())) {
+				// stays scheduled until its interval elapsed
+				continue;
+			}
+
+			it.remove();
+			accessor.fabric_setLastScheduledSync(time);
+			BlockPos pos = blockEntity.getPos();
+			long chunkPos = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+			ChunkUpdates updates = updatesByChunk.get(chunkPos);
+
+			if (updates == null) {
+				updates = new ChunkUpdates();
+				updatesByChunk.put(chunkPos, updates);
+			}
+
+			if (blockEntity instanceof BlockEntityClientDataSerializable) {
+				updates.data.add(blockEntity);
+			} else if (blockEntity instanceof DeltaBlockEntityClientSerializable) {
+				DeltaBlockEntityClientSerializable serializable = (DeltaBlockEntityClientSerializable) blockEntity;
+				CompoundTag tag = serializable.toClientTag(createClientTag(blockEntity));
+				updates.add(BlockEntityDeltaSync.createUpdatePacket(serializable, tag, time), blockEntity, tag);
+			} else {
+				updates.add(blockEntity.toUpdatePacket(), blockEntity, null);
+			}
+		}
+
+		for (Long2ObjectMap.Entry<ChunkUpdates> entry : updatesByChunk.long2ObjectEntrySet()) {
+			send(world, new ChunkPos(entry.getLongKey()), entry.getValue());
+		}
+	}
+
+	private void send(ServerWorld world, ChunkPos chunkPos, ChunkUpdates updates) {
+		if (updates.packets.isEmpty() && updates.data.isEmpty()) {
+			return;
+		}
+
+		Packet<?> sharedBundle = null;
+		Packet<?> sharedData = null;
+		List<BlockEntityUpdateS2CPacket> playerPackets = new ArrayList<>();
+		List<BlockEntity> playerData = new ArrayList<>();
+		BlockEntityUpdateS2CPacket[] distantPackets = null;
+		// whether a player did not receive the packet, so that it cannot be the base of a delta
+		boolean[] missed = new boolean[updates.packets.size()];
+		Iterator<PlayerEntity> players = PlayerStream.watching(world, chunkPos).iterator();
+
+		while (players.hasNext()) {
+			ServerPlayerEntity player = (ServerPlayerEntity) players.next();
+			boolean culled = false;
+			playerPackets.clear();
+			playerData.clear();
+
+			for (int i = 0; i < updates.packets.size(); i++) {
+				BlockEntity blockEntity = updates.packetBlockEntities.get(i);
+
+				if (isInSyncRadius(player, blockEntity)) {
+					playerPackets.add(updates.packets.get(i));
+					continue;
+				}
+
+				culled = true;
+				missed[i] = true;
+				markStale(world, blockEntity, player);
+
+				if (distantPackets == null) {
+					distantPackets = new BlockEntityUpdateS2CPacket[updates.packets.size()];
+
+					for (int j = 0; j < distantPackets.length; j++) {
+						distantPackets[j] = createDistantPacket(updates.packetBlockEntities.get(j));
+					}
+				}
+
+				if (distantPackets[i] != null) {
+					playerPackets.add(distantPackets[i]);
+				}
+			}
+
+			for (BlockEntity blockEntity : updates.data) {
+				if (isInSyncRadius(player, blockEntity)) {
+					playerData.add(blockEntity);
+				} else {
+					culled = true;
+					markStale(world, blockEntity, player);
+				}
+			}
+
+			List<BlockEntityUpdateS2CPacket> packets = culled ? playerPackets : updates.packets;
+			List<BlockEntity> data = culled ? playerData : updates.data;
+
+			if (!data.isEmpty() && ServerSidePacketRegistry.INSTANCE.canPlayerReceive(player, BlockEntityClientData.DATA)) {
+				if (culled) {
+					player.networkHandler.sendPacket(ServerSidePacketRegistry.INSTANCE.toPacket(BlockEntityClientData.DATA, BlockEntityClientData.write(data)));
+				} else {
+					if (sharedData == null) {
+						sharedData = ServerSidePacketRegistry.INSTANCE.toPacket(BlockEntityClientData.DATA, BlockEntityClientData.write(data));
+					}
+
+					player.networkHandler.sendPacket(sharedData);
+				}
+			}
+
+			if (packets.size() > 1 && ServerSidePacketRegistry.INSTANCE.canPlayerReceive(player, UPDATES)) {
+				if (culled) {
+					player.networkHandler.sendPacket(ServerSidePacketRegistry.INSTANCE.toPacket(UPDATES, writeUpdates(packets)));
+				} else {
+					if (sharedBundle == null) {
+						sharedBundle = ServerSidePacketRegistry.INSTANCE.toPacket(UPDATES, writeUpdates(packets));
+					}
+
+					player.networkHandler.sendPacket(sharedBundle);
+				}
+			} else {
+				for (BlockEntityUpdateS2CPacket packet : packets) {
+					player.networkHandler.sendPacket(packet);
+				}
+			}
+		}
+
+		for (int i = 0; i < updates.packets.size(); i++) {
+			CompoundTag tag = updates.packetTags.get(i);
+
+			if (tag != null) {
+				BlockEntityDeltaSync.onSent((DeltaBlockEntityClientSerializable) updates.packetBlockEntities.get(i), tag, !missed[i]);
+			}
+		}
+	}
+
+	private void catchUp() {
+		List<BlockEntity> resync = null;
+		Iterator<Map.Entry<ServerPlayerEntity, StaleBlockEntities>> it = stale.entrySet().iterator();
+
+		while (it.hasNext()) {
+			Map.Entry<ServerPlayerEntity, StaleBlockEntities> entry = it.next();
+			ServerPlayerEntity player = entry.getKey();
+			StaleBlockEntities stale = entry.getValue();
+
+			if (player.removed || player.world != stale.world) {
+				// disconnected or changed worlds; a returning player receives the chunks anew
+				it.remove();
+				continue;
+			}
+
+			// only look at the block entities again once the player may have come within the radius of one
+			if (stale.getMovedDistance(player) < stale.slack) {
+				continue;
+			}
+
+			stale.setAnchor(player);
+			Iterator<BlockEntity> blockEntities = stale.blockEntities.iterator();
+
+			while (blockEntities.hasNext()) {
+				BlockEntity blockEntity = blockEntities.next();
+
+				if (blockEntity.isInvalid() || blockEntity.getWorld() != stale.world) {
+					blockEntities.remove();
+					continue;
+				}
+
+				double margin = getDistanceOutOfSyncRadius(player, blockEntity);
+
+				if (margin > 0) {
+					stale.slack = Math.min(stale.slack, margin);
+					continue;
+				}
+
+				blockEntities.remove();
+
+				if (blockEntity instanceof BlockEntityClientDataSerializable) {
+					if (ServerSidePacketRegistry.INSTANCE.canPlayerReceive(player, BlockEntityClientData.DATA)) {
+						ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, BlockEntityClientData.DATA, BlockEntityClientData.write(Collections.singletonList(blockEntity)));
+					}
+				} else if (blockEntity instanceof DeltaBlockEntityClientSerializable) {
+					if (resync == null) {
+						resync = new ArrayList<>();
+					}
+
+					resync.add(blockEntity);
+				} else {
+					BlockEntityUpdateS2CPacket packet = createFullPacket(blockEntity);
+
+					if (packet != null) {
+						player.networkHandler.sendPacket(packet);
+					}
+				}
+			}
+
+			if (stale.blockEntities.isEmpty()) {
+				it.remove();
+			}
+		}
+
+		if (resync != null) {
+			for (BlockEntity blockEntity : resync) {
+				// the player's delta base is unknown; send everyone the full tag, as after a chunk send
+				((BlockEntityDeltaAccessor) blockEntity).fabric_setSyncedTag(null);
+				schedule(blockEntity);
+			}
+		}
+	}
+
+	/**
+	 * Forget every scheduled update and stale block entity. Called when the server stops.
+	 */
+	public void clear() {
+		pending.clear();
+		stale.clear();
+	}
+
+	private boolean isInSyncRadius(ServerPlayerEntity player, BlockEntity blockEntity) {
+		double radius = getSyncRadius(blockEntity.getType());
+
+		if (radius == Double.POSITIVE_INFINITY) {
+			return true;
+		}
+
+		BlockPos pos = blockEntity.getPos();
+		return player.squaredDistanceTo(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5) <= radius * radius;
+	}
+
+	/**
+	 * @return How much closer the player has to get to come within the block entity's sync radius.
+	 */
+	private double getDistanceOutOfSyncRadius(ServerPlayerEntity player, BlockEntity blockEntity) {
+		BlockPos pos = blockEntity.getPos();
+		return Math.sqrt(player.squaredDistanceTo(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5)) - getSyncRadius(blockEntity.getType());
+	}
+
+	private void markStale(ServerWorld world, BlockEntity blockEntity, ServerPlayerEntity player) {
+		StaleBlockEntities stale = this.stale.get(player);
+
+		if (stale == null || stale.world != world) {
+			stale = new StaleBlockEntities(world, player);
+			this.stale.put(player, stale);
+		}
+
+		if (stale.blockEntities.add(blockEntity)) {
+			// measured from the current position, so it has to account for the moves since the anchor was set
+			stale.slack = Math.min(stale.slack, getDistanceOutOfSyncRadius(player, blockEntity) - stale.getMovedDistance(player));
+		}
+	}
+
+	private static CompoundTag createClientTag(BlockEntity blockEntity) {
+		CompoundTag tag = new CompoundTag();
+		tag.putString("id", BlockEntityType.getId(blockEntity.getType()).toString());
+		return tag;
+	}
+
+	/**
+	 * @return The update carrying the whole client state of the block entity, or null if it has none.
+	 */
+	private static BlockEntityUpdateS2CPacket createFullPacket(BlockEntity blockEntity) {
+		if (!(blockEntity instanceof BlockEntityClientSerializable)) {
+			// any block entity may be scheduled, and culled by the radius of its type
+			return blockEntity.toUpdatePacket();
+		}
+
+		CompoundTag tag = ((BlockEntityClientSerializable) blockEntity).toClientTag(createClientTag(blockEntity));
+		return new BlockEntityUpdateS2CPacket(blockEntity.getPos(), BlockEntityDeltaSync.FULL_ACTION_ID, tag);
+	}
+
+	/**
+	 * @return The update for players out of the block entity's sync radius, or null if they get none.
+	 */
+	private static BlockEntityUpdateS2CPacket createDistantPacket(BlockEntity blockEntity) {
+		if (!(blockEntity instanceof BlockEntityClientSerializable)) {
+			return null;
+		}
+
+		CompoundTag tag = ((BlockEntityClientSerializable) blockEntity).toDistantClientTag(createClientTag(blockEntity));
+		return tag != null ? new BlockEntityUpdateS2CPacket(blockEntity.getPos(), BlockEntityDeltaSync.FULL_ACTION_ID, tag) : null;
+	}
+
+	/**
+	 * Write the given updates as the payload of an {@link #UPDATES} packet:
+	 * their count, followed by the position, action id and tag of each.
+	 */
+	private static PacketByteBuf writeUpdates(List<BlockEntityUpdateS2CPacket> packets) {
+		PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+		buf.writeVarInt(packets.size());
+
+		for (BlockEntityUpdateS2CPacket packet : packets) {
+			BlockEntityUpdateS2CPacketAccessor accessor = (BlockEntityUpdateS2CPacketAccessor) packet;
+			buf.writeBlockPos(accessor.fabric_getPos());
+			buf.writeVarInt(accessor.fabric_getActionId());
+			buf.writeCompoundTag(accessor.fabric_getTag());
+		}
+
+		return buf;
+	}
+
+	private static final class StaleBlockEntities {
+		private final ServerWorld world;
+		/**
+		 * Weakly referenced, so that block entities unloaded meanwhile are dropped.
+		 */
+		private final Set<BlockEntity> blockEntities = Collections.newSetFromMap(new WeakHashMap<>());
+		private double anchorX;
+		private double anchorY;
+		private double anchorZ;
+		/**
+		 * How far the player can move from the anchor before any of the block entities can be within its sync radius.
+		 */
+		private double slack = Double.POSITIVE_INFINITY;
+
+		private StaleBlockEntities(ServerWorld world, ServerPlayerEntity player) {
+			this.world = world;
+			setAnchor(player);
+		}
+
+		private void setAnchor(ServerPlayerEntity player) {
+			anchorX = player.x;
+			anchorY = player.y;
+			anchorZ = player.z;
+			slack = Double.POSITIVE_INFINITY;
+		}
+
+		private double getMovedDistance(ServerPlayerEntity player) {
+			return Math.sqrt(player.squaredDistanceTo(anchorX, anchorY, anchorZ));
+		}
+	}
+
+	private static final class ChunkUpdates {
+		private final List<BlockEntityUpdateS2CPacket> packets = new ArrayList<>();
+		/**
+		 * The block entities the {@link #packets} belong to.
+		 */
+		private final List<BlockEntity> packetBlockEntities = new ArrayList<>();
+		/**
+		 * The client tags the {@link #packets} of delta block entities were created from, null for other packets.
+		 */
+		private final List<CompoundTag> packetTags = new ArrayList<>();
+		private final List<BlockEntity> data = new ArrayList<>();
+
+		private void add(BlockEntityUpdateS2CPacket packet, BlockEntity blockEntity, CompoundTag tag) {
+			if (packet != null) {
+				packets.add(packet);
+				packetBlockEntities.add(blockEntity);
+				packetTags.add(tag);
+			}
+		}
+	}
+}
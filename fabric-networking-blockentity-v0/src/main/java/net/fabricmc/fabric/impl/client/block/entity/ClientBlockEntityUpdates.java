@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.client.block.entity;
+
+import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientDataSerializable;
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientSerializable;
+import net.fabricmc.fabric.api.block.entity.DeltaBlockEntityClientSerializable;
+import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.impl.block.entity.BlockEntityClientData;
+import net.fabricmc.fabric.impl.block.entity.BlockEntityDeltaAccessor;
+import net.fabricmc.fabric.impl.block.entity.BlockEntityDeltaSync;
+import net.fabricmc.fabric.impl.block.entity.BlockEntitySyncSchedulerImpl;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.BlockEntityType;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.registry.Registry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Applies the client tags of {@link BlockEntityClientSerializable} block entities,
+ * whether received one by one or {@link BlockEntitySyncSchedulerImpl#UPDATES batched},
+ * and the {@link BlockEntityClientData binary data} of {@link BlockEntityClientDataSerializable} ones.
+ */
+public final class ClientBlockEntityUpdates {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private ClientBlockEntityUpdates() {
+
+	}
+
+	public static void init() {
+		ClientSidePacketRegistry.INSTANCE.register(BlockEntitySyncSchedulerImpl.UPDATES, (context, buf) -> {
+			int count = buf.readVarInt();
+			BlockPos[] positions = new BlockPos[count];
+			int[] actionIds = new int[count];
+			CompoundTag[] tags = new CompoundTag[count];
+
+			for (int i = 0; i < count; i++) {
+				positions[i] = buf.readBlockPos();
+				actionIds[i] = buf.readVarInt();
+				tags[i] = buf.readCompoundTag();
+			}
+
+			context.getTaskQueue().execute(() -> {
+				for (int i = 0; i < count; i++) {
+					BlockEntity entity = context.getPlayer().world.getBlockEntity(positions[i]);
+
+					if (entity instanceof BlockEntityClientSerializable) {
+						apply(entity, actionIds[i], tags[i]);
+					}
+				}
+			});
+		});
+
+		ClientSidePacketRegistry.INSTANCE.register(BlockEntityClientData.DATA, (context, buf) -> {
+			int count = buf.readVarInt();
+			BlockPos[] positions = new BlockPos[count];
+			int[] rawTypeIds = new int[count];
+			byte[][] data = new byte[count][];
+
+			for (int i = 0; i < count; i++) {
+				positions[i] = buf.readBlockPos();
+				rawTypeIds[i] = buf.readVarInt();
+				data[i] = new byte[buf.readVarInt()];
+				buf.readBytes(data[i]);
+			}
+
+			context.getTaskQueue().execute(() -> {
+				for (int i = 0; i < count; i++) {
+					BlockEntity entity = context.getPlayer().world.getBlockEntity(positions[i]);
+
+					// the block entity may have been replaced in the meantime
+					if (entity instanceof BlockEntityClientDataSerializable && Registry.BLOCK_ENTITY.getRawId(entity.getType()) == rawTypeIds[i]) {
+						((BlockEntityClientDataSerializable) entity).readClientData(new PacketByteBuf(Unpooled.wrappedBuffer(data[i])));
+					}
+				}
+			});
+		});
+	}
+
+	/**
+	 * Apply a client tag or delta to the given block entity, if it is of the type the tag was written for.
+	 */
+	public static void apply(BlockEntity entity, int actionId, CompoundTag tag) {
+		boolean delta = entity instanceof DeltaBlockEntityClientSerializable;
+
+		if (actionId != BlockEntityDeltaSync.FULL_ACTION_ID && (!delta || actionId != BlockEntityDeltaSync.DELTA_ACTION_ID)) {
+			return;
+		}
+
+		Identifier id = BlockEntityType.getId(entity.getType());
+
+		if (id == null) {
+			LOGGER.error(entity.getClass() + " is missing a mapping! This is a bug!");
+			return;
+		}
+
+		if (!id.toString().equals(tag.getString("id"))) {
+			return;
+		}
+
+		if (delta) {
+			applyDelta((DeltaBlockEntityClientSerializable) entity, actionId, tag);
+		} else {
+			((BlockEntityClientSerializable) entity).fromClientTag(tag);
+		}
+	}
+
+	private static void applyDelta(DeltaBlockEntityClientSerializable serializable, int actionId, CompoundTag tag) {
+		BlockEntityDeltaAccessor accessor = (BlockEntityDeltaAccessor) serializable;
+
+		if (actionId == BlockEntityDeltaSync.FULL_ACTION_ID) {
+			accessor.fabric_setSyncedTag(tag);
+			serializable.fromClientTag(tag.copy());
+			return;
+		}
+
+		CompoundTag syncedTag = accessor.fabric_getSyncedTag();
+
+		if (syncedTag == null) {
+			// nothing to merge into, the next full sync will catch up
+			return;
+		}
+
+		BlockEntityDeltaSync.apply(syncedTag, tag);
+		serializable.fromClientTag(syncedTag.copy());
+	}
+}
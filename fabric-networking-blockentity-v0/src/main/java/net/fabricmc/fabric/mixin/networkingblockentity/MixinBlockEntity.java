@@ -16,7 +16,12 @@
 
 package net.fabricmc.fabric.mixin.networkingblockentity;
 
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientDataSerializable;
 import net.fabricmc.fabric.api.block.entity.BlockEntityClientSerializable;
+import net.fabricmc.fabric.api.block.entity.DeltaBlockEntityClientSerializable;
+import net.fabricmc.fabric.impl.block.entity.BlockEntityDeltaAccessor;
+import net.fabricmc.fabric.impl.block.entity.BlockEntityDeltaSync;
+import net.fabricmc.fabric.impl.block.entity.BlockEntitySyncAccessor;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.client.network.packet.BlockEntityUpdateS2CPacket;
@@ -25,18 +30,61 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(BlockEntity.class)
-public abstract class MixinBlockEntity {
+public abstract class MixinBlockEntity implements BlockEntityDeltaAccessor, BlockEntitySyncAccessor {
+	@Unique
+	private CompoundTag fabric_syncedTag;
+	@Unique
+	private long fabric_lastFullSync;
+	@Unique
+	private long fabric_lastScheduledSync = Long.MIN_VALUE;
+
 	@Shadow
 	public abstract BlockEntityType<?> getType();
 
 	@Shadow
 	public abstract BlockPos getPos();
 
+	@Shadow
+	private CompoundTag writeIdentifyingData(CompoundTag tag) {
+		return null;
+	}
+
+	@Override
+	public CompoundTag fabric_getSyncedTag() {
+		return fabric_syncedTag;
+	}
+
+	@Override
+	public void fabric_setSyncedTag(CompoundTag tag) {
+		fabric_syncedTag = tag;
+	}
+
+	@Override
+	public long fabric_getLastFullSync() {
+		return fabric_lastFullSync;
+	}
+
+	@Override
+	public void fabric_setLastFullSync(long time) {
+		fabric_lastFullSync = time;
+	}
+
+	@Override
+	public long fabric_getLastScheduledSync() {
+		return fabric_lastScheduledSync;
+	}
+
+	@Override
+	public void fabric_setLastScheduledSync(long time) {
+		fabric_lastScheduledSync = time;
+	}
+
 	@Inject(at = @At("HEAD"), method = "toUpdatePacket", cancellable = true)
 	public void toUpdatePacket(CallbackInfoReturnable<BlockEntityUpdateS2CPacket> info) {
 		Object self = (Object) this;
@@ -56,17 +104,36 @@ public abstract class MixinBlockEntity {
 
 			tag.putString("id", entityId.toString());
 			tag = ((BlockEntityClientSerializable) self).toClientTag(tag);
-			info.setReturnValue(new BlockEntityUpdateS2CPacket(getPos(), 127, tag));
+
+			if (self instanceof DeltaBlockEntityClientSerializable) {
+				// whoever receives this packet is unknown, so deltas against the last sent tag
+				// could miss changes; the scheduler starts over with a full tag
+				fabric_syncedTag = null;
+			}
+
+			info.setReturnValue(new BlockEntityUpdateS2CPacket(getPos(), BlockEntityDeltaSync.FULL_ACTION_ID, tag));
 			info.cancel();
 		}
 	}
 
+	@Inject(at = @At("HEAD"), method = "toInitialChunkDataTag", cancellable = true)
+	public void toInitialChunkDataTagHead(CallbackInfoReturnable<CompoundTag> info) {
+		if ((Object) this instanceof BlockEntityClientDataSerializable) {
+			// the data itself follows in a separate packet, see MixinThreadedAnvilChunkStorage
+			info.setReturnValue(writeIdentifyingData(new CompoundTag()));
+		}
+	}
+
 	@Inject(at = @At("RETURN"), method = "toInitialChunkDataTag", cancellable = true)
 	public void toInitialChunkDataTag(CallbackInfoReturnable<CompoundTag> info) {
 		Object self = (Object) this;
 
 		if (self instanceof BlockEntityClientSerializable && info.getReturnValue() != null) {
 			info.setReturnValue(((BlockEntityClientSerializable) self).toClientTag(info.getReturnValue()));
+
+			// the players receiving the chunk start from the current tag, so deltas against
+			// the last sent one would miss changes; start over with a full tag
+			fabric_syncedTag = null;
 		}
 	}
 }
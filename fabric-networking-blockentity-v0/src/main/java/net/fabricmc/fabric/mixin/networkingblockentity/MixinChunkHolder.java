@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.mixin.networkingblockentity;
+
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientDataSerializable;
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientSerializable;
+import net.fabricmc.fabric.api.block.entity.BlockEntitySyncScheduler;
+import net.fabricmc.fabric.api.server.PlayerStream;
+import net.fabricmc.fabric.impl.block.entity.BlockEntityClientData;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ChunkHolder;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.ModifyArg;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Mixin(ChunkHolder.class)
+public class MixinChunkHolder {
+	@Inject(at = @At("HEAD"), method = "sendBlockEntityUpdatePacket", cancellable = true)
+	private void sendBlockEntityUpdatePacket(World world, BlockPos pos, CallbackInfo info) {
+		BlockEntity blockEntity = world.getBlockEntity(pos);
+
+		if (blockEntity instanceof BlockEntityClientSerializable || blockEntity instanceof BlockEntityClientDataSerializable) {
+			BlockEntitySyncScheduler.INSTANCE.schedule(blockEntity);
+			info.cancel();
+		}
+	}
+
+	/**
+	 * The sections of the chunk data packet being sent by {@link #flushChunkData}, or 0.
+	 */
+	@Unique
+	private int fabric_resentSections;
+
+	@ModifyArg(method = "flushUpdates", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/network/packet/ChunkDataS2CPacket;<init>(Lnet/minecraft/world/chunk/WorldChunk;I)V"), index = 1)
+	private int captureResentSections(int sections) {
+		fabric_resentSections = sections;
+		return sections;
+	}
+
+	@Inject(at = @At("RETURN"), method = "flushUpdates")
+	private void flushChunkData(WorldChunk chunk, CallbackInfo info) {
+		int sections = fabric_resentSections;
+
+		if (sections == 0) {
+			return;
+		}
+
+		fabric_resentSections = 0;
+		// chunk data resent to the watching players only carries the ids of binary block entities,
+		// and only replaces the block entities of the resent sections
+		List<BlockEntity> resent = new ArrayList<>();
+
+		for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+			if ((sections & 1 << (blockEntity.getPos().getY() >> 4)) != 0) {
+				resent.add(blockEntity);
+			}
+		}
+
+		if (!resent.isEmpty()) {
+			// right after the chunk data, which the players must not see without the block entities' data
+			PlayerStream.watching(chunk.getWorld(), chunk.getPos()).forEach((player) -> BlockEntityClientData.sendChunkData((ServerPlayerEntity) player, resent));
+		}
+	}
+}
@@ -16,17 +16,16 @@
 
 package net.fabricmc.fabric.mixin.networkingblockentity;
 
+import net.fabricmc.fabric.api.block.entity.BlockEntityClientDataSerializable;
 import net.fabricmc.fabric.api.block.entity.BlockEntityClientSerializable;
+import net.fabricmc.fabric.api.block.entity.DeltaBlockEntityClientSerializable;
+import net.fabricmc.fabric.impl.block.entity.BlockEntityDeltaAccessor;
+import net.fabricmc.fabric.impl.client.block.entity.ClientBlockEntityUpdates;
 import net.minecraft.block.entity.BlockEntity;
-import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.client.network.packet.BlockEntityUpdateS2CPacket;
 import net.minecraft.nbt.CompoundTag;
-import net.minecraft.util.Identifier;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.spongepowered.asm.mixin.Mixin;
-import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
@@ -35,38 +34,23 @@ import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
 @Mixin(ClientPlayNetworkHandler.class)
 public class MixinClientPlayNetworkHandler {
-	@Unique
-	private static Logger FABRIC_LOGGER = LogManager.getLogger();
-
 	@Inject(at = @At(value = "INVOKE", target = "Lnet/minecraft/client/network/packet/BlockEntityUpdateS2CPacket;getActionId()I", ordinal = 0), method = "onBlockEntityUpdate", cancellable = true, locals = LocalCapture.CAPTURE_FAILHARD)
 	public void onBlockEntityUpdate(BlockEntityUpdateS2CPacket packet, CallbackInfo info, BlockEntity entity) {
 		if (entity instanceof BlockEntityClientSerializable) {
-			if (packet.getActionId() == 127) {
-				BlockEntityClientSerializable serializable = (BlockEntityClientSerializable) entity;
-				String id = packet.getCompoundTag().getString("id");
-				if (id != null) {
-					Identifier otherIdObj = BlockEntityType.getId(entity.getType());
-					;
-					if (otherIdObj == null) {
-						FABRIC_LOGGER.error(entity.getClass() + " is missing a mapping! This is a bug!");
-						info.cancel();
-						return;
-					}
-					String otherId = otherIdObj.toString();
-
-					if (otherId.equals(id)) {
-						serializable.fromClientTag(packet.getCompoundTag());
-					}
-				}
-			}
-
+			ClientBlockEntityUpdates.apply(entity, packet.getActionId(), packet.getCompoundTag());
 			info.cancel();
 		}
 	}
 
 	@Redirect(method = "onChunkData", at = @At(value = "INVOKE", target = "Lnet/minecraft/block/entity/BlockEntity;fromTag(Lnet/minecraft/nbt/CompoundTag;)V"))
 	public void deserializeBlockEntityChunkData(BlockEntity entity, CompoundTag tag) {
-		if (entity instanceof BlockEntityClientSerializable) {
+		if (entity instanceof BlockEntityClientDataSerializable) {
+			// the data follows in a separate packet
+		} else if (entity instanceof BlockEntityClientSerializable) {
+			if (entity instanceof DeltaBlockEntityClientSerializable) {
+				((BlockEntityDeltaAccessor) entity).fabric_setSyncedTag(tag.copy());
+			}
+
 			((BlockEntityClientSerializable) entity).fromClientTag(tag);
 		} else {
 			entity.fromTag(tag);
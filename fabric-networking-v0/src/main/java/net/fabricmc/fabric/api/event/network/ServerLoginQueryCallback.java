@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.event.network;
+
+import com.mojang.authlib.GameProfile;
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.fabricmc.fabric.api.network.LoginQuerySender;
+
+/**
+ * Event fired on the server thread when a player is about to join, after having logged in,
+ * allowing the server to exchange login queries with the client before the player is created.
+ * <p>
+ * The player only joins once every query sent and every future passed to
+ * {@link LoginQuerySender#waitFor(java.util.concurrent.CompletableFuture)} completed, so the
+ * negotiation runs alongside the server's own work rather than after the player joined.
+ */
+public interface ServerLoginQueryCallback {
+	static final Event<ServerLoginQueryCallback> EVENT = EventFactory.createArrayBacked(
+		ServerLoginQueryCallback.class,
+		(callbacks) -> (profile, sender) -> {
+			for (ServerLoginQueryCallback callback : callbacks) {
+				callback.onLoginQueryStart(profile, sender);
+			}
+		}
+	);
+
+	/**
+	 * @param profile The profile of the joining player.
+	 * @param sender  The sender of login queries to the joining player's client.
+	 */
+	void onLoginQueryStart(GameProfile profile, LoginQuerySender sender);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.event.network;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * Event fired on the server thread while a player joins, before the server sends the
+ * difficulty and the rest of the world state to the client.
+ * <p>
+ * It is fired once the channels the client announced during login were applied, so
+ * {@link net.fabricmc.fabric.api.network.ServerSidePacketRegistry#canPlayerReceive} already
+ * reflects them, and packets sent by listeners arrive before the player's world.
+ */
+public interface ServerPlayerJoinCallback {
+	static final Event<ServerPlayerJoinCallback> EVENT = EventFactory.createArrayBacked(
+		ServerPlayerJoinCallback.class,
+		(callbacks) -> (connection, player) -> {
+			for (ServerPlayerJoinCallback callback : callbacks) {
+				callback.onPlayerJoin(connection, player);
+			}
+		}
+	);
+
+	/**
+	 * @param connection The connection of the joining player.
+	 * @param player     The joining player.
+	 */
+	void onPlayerJoin(ClientConnection connection, ServerPlayerEntity player);
+}
@@ -43,6 +43,15 @@ public interface ClientSidePacketRegistry extends PacketRegistry {
 	 */
 	boolean canServerReceive(Identifier id);
 
+	/**
+	 * Register a responder for the login queries sent by servers on a given channel,
+	 * see {@link net.fabricmc.fabric.api.event.network.ServerLoginQueryCallback}.
+	 *
+	 * @param channel   The query channel.
+	 * @param responder The responder.
+	 */
+	void registerLoginQuery(Identifier channel, LoginQueryResponder responder);
+
 	/**
 	 * Send a packet to the server.
 	 *
@@ -82,4 +91,16 @@ public interface ClientSidePacketRegistry extends PacketRegistry {
 	default void sendToServer(Identifier id, PacketByteBuf buf) {
 		sendToServer(id, buf, null);
 	}
+
+	/**
+	 * Send a message to the server, encoding it with the given codec.
+	 *
+	 * @param id      The packet identifier.
+	 * @param codec   The codec encoding the message.
+	 * @param message The message.
+	 * @param <T>     The message type.
+	 */
+	default <T> void sendToServer(Identifier id, PacketCodec<T> codec, T message) {
+		sendToServer(toPacket(id, codec, message), null);
+	}
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+import net.minecraft.util.PacketByteBuf;
+
+/**
+ * Responds to login queries received by the client, see
+ * {@link ClientSidePacketRegistry#registerLoginQuery(net.minecraft.util.Identifier, LoginQueryResponder)}.
+ */
+@FunctionalInterface
+public interface LoginQueryResponder {
+	/**
+	 * Respond to a login query. This method is executed on the netty event loops.
+	 *
+	 * @param payload The query payload. It must not be kept around.
+	 * @return The response, or null to tell the server that the query was not understood.
+	 */
+	PacketByteBuf respond(PacketByteBuf payload);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends login queries to a client which is logging in, see
+ * {@link net.fabricmc.fabric.api.event.network.ServerLoginQueryCallback}.
+ */
+public interface LoginQuerySender {
+	/**
+	 * Send a login query to the client.
+	 * <p>
+	 * The returned future is completed on a network thread, so any work done on the game
+	 * state once the response is received has to be handed over to the server thread.
+	 *
+	 * @param channel The query channel, which the client handles with a {@link LoginQueryResponder}.
+	 * @param payload The query payload.
+	 * @return A future completed with the client's response, or with null if the client
+	 * does not understand the query (for example, if it is a vanilla client).
+	 */
+	CompletableFuture<PacketByteBuf> sendQuery(Identifier channel, PacketByteBuf payload);
+
+	/**
+	 * Delay the player's joining until the given future completes. If it completes
+	 * exceptionally, the player is disconnected.
+	 *
+	 * @param future The future to wait for.
+	 */
+	void waitFor(CompletableFuture<?> future);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+/**
+ * Defines how the payload of a received packet is handed to its {@link PacketConsumer}.
+ */
+public enum PacketBufferMode {
+	/**
+	 * The consumer receives a copy of the payload, which it is free to modify.
+	 */
+	COPY,
+	/**
+	 * The consumer receives a retained slice of the packet's own buffer, avoiding
+	 * the copy. The slice shares its memory with the packet, so it must not be written to.
+	 * <p>
+	 * The slice is released once the consumer returns, so it must only be released by
+	 * consumers which retained it beforehand. For pooled buffers, the slice has a reference
+	 * count of its own, which keeps the packet's buffer alive until it reaches zero; for
+	 * unpooled buffers, it shares the reference count of the packet's buffer.
+	 */
+	RETAINED_SLICE
+}
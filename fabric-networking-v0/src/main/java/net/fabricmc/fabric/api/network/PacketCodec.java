@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+import net.minecraft.util.PacketByteBuf;
+
+/**
+ * Converts messages of a given type to and from CustomPayload-based packet data,
+ * for use with {@link PacketRegistry#register(net.minecraft.util.Identifier, PacketCodec, PacketMessageConsumer)}
+ * and the codec-based send methods.
+ *
+ * @param <T> The message type.
+ */
+public interface PacketCodec<T> {
+	/**
+	 * Write a message to a packet buffer.
+	 *
+	 * @param message The message.
+	 * @param buffer  The buffer to write to.
+	 */
+	void encode(T message, PacketByteBuf buffer);
+
+	/**
+	 * Read a message from a packet buffer.
+	 * <p>
+	 * The previously decoded message is passed back on later calls from the same thread,
+	 * so that mutable message types can be filled in again instead of allocating a new
+	 * message for every packet.
+	 *
+	 * @param buffer The buffer to read from.
+	 * @param reuse  A previously decoded message which may be overwritten and returned, or null.
+	 * @return The decoded message.
+	 */
+	T decode(PacketByteBuf buffer, T reuse);
+
+	/**
+	 * Estimate the encoded size of a message, which is used to preallocate the buffer
+	 * it is encoded into.
+	 *
+	 * @param message The message.
+	 * @return The expected size in bytes, or -1 if unknown.
+	 */
+	default int getSizeHint(T message) {
+		return -1;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+import java.util.Arrays;
+
+/**
+ * Describes how the payloads of a channel are compressed, see
+ * {@link PacketRegistry#setCompression(net.minecraft.util.Identifier, PacketCompression)}.
+ * <p>
+ * Payloads are compressed with deflate, optionally using a preset dictionary. A dictionary
+ * containing strings which commonly occur in the channel's payloads (such as identifiers
+ * or NBT keys) greatly improves the compression of small payloads, but has to be exactly
+ * the same on both sides.
+ */
+public final class PacketCompression {
+	private final int threshold;
+	private final byte[] dictionary;
+
+	private PacketCompression(int threshold, byte[] dictionary) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Negative compression threshold: " + threshold);
+		}
+
+		this.threshold = threshold;
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * @param threshold The minimum payload size in bytes for a payload to be compressed.
+	 * @return A deflate compression without a dictionary.
+	 */
+	public static PacketCompression deflate(int threshold) {
+		return new PacketCompression(threshold, null);
+	}
+
+	/**
+	 * @param threshold  The minimum payload size in bytes for a payload to be compressed.
+	 * @param dictionary The preset dictionary, which must be identical on both sides.
+	 * @return A deflate compression using the given dictionary.
+	 */
+	public static PacketCompression deflate(int threshold, byte[] dictionary) {
+		return new PacketCompression(threshold, Arrays.copyOf(dictionary, dictionary.length));
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * @return True if a preset dictionary is used.
+	 */
+	public boolean hasDictionary() {
+		return dictionary != null;
+	}
+
+	/**
+	 * @return A copy of the preset dictionary, or null if none is used.
+	 */
+	public byte[] getDictionary() {
+		return dictionary != null ? Arrays.copyOf(dictionary, dictionary.length) : null;
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+/**
+ * Interface for receiving messages decoded by a {@link PacketCodec}.
+ *
+ * @param <T> The message type.
+ */
+@FunctionalInterface
+public interface PacketMessageConsumer<T> {
+	/**
+	 * Receive a decoded message.
+	 * <p>
+	 * This method is executed on the netty event loops. Any in-game
+	 * interactions should be done using the task queue provided in the
+	 * context.
+	 * <p>
+	 * The message may be reused for decoding later packets once this method
+	 * returns, so it must not be kept around or handed over to the task queue
+	 * if the codec mutates previously decoded messages.
+	 *
+	 * @param context The context (receiving player, side, etc.)
+	 * @param message The decoded message.
+	 */
+	void accept(PacketContext context, T message);
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+import net.fabricmc.fabric.impl.network.PacketRateCounts;
+
+/**
+ * A limit on the rate at which each player may send packets on a channel, see
+ * {@link ServerSidePacketRegistry#setRateLimit(net.minecraft.util.Identifier, PacketRateLimit)}.
+ * <p>
+ * Limits are token buckets: every player may send up to {@code burst} packets at once,
+ * and regains the ability to send one more packet {@code packetsPerSecond} times per second.
+ * <p>
+ * A limit also counts what happened to the packets it applied to, for monitoring. The counts
+ * are shared by every player and every channel the limit is set for.
+ */
+public final class PacketRateLimit {
+	private final double packetsPerSecond;
+	private final int burst;
+	private final PacketOverflowPolicy overflowPolicy;
+	private final int queueCapacity;
+	private final PacketRateCounts counts = new PacketRateCounts();
+
+	private PacketRateLimit(double packetsPerSecond, int burst, PacketOverflowPolicy overflowPolicy, int queueCapacity) {
+		if (packetsPerSecond <= 0 || burst < 1 || queueCapacity < 0) {
+			throw new IllegalArgumentException("Invalid rate limit: " + packetsPerSecond + "/s, burst " + burst + ", queue " + queueCapacity);
+		}
+
+		this.packetsPerSecond = packetsPerSecond;
+		this.burst = burst;
+		this.overflowPolicy = overflowPolicy;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * @param packetsPerSecond The sustained number of packets per second.
+	 * @param burst            The number of packets which may be sent at once.
+	 * @param overflowPolicy   What to do with packets exceeding the limit. With {@link PacketOverflowPolicy#DEFER},
+	 *                         up to {@code burst} packets are queued per player.
+	 * @return The rate limit.
+	 */
+	public static PacketRateLimit of(double packetsPerSecond, int burst, PacketOverflowPolicy overflowPolicy) {
+		return new PacketRateLimit(packetsPerSecond, burst, overflowPolicy, burst);
+	}
+
+	/**
+	 * @param queueCapacity The maximum number of packets queued per player with {@link PacketOverflowPolicy#DEFER}.
+	 * @return A rate limit with the same settings, but the given queue capacity and new counts.
+	 */
+	public PacketRateLimit withQueueCapacity(int queueCapacity) {
+		return new PacketRateLimit(packetsPerSecond, burst, overflowPolicy, queueCapacity);
+	}
+
+	public double getPacketsPerSecond() {
+		return packetsPerSecond;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+
+	public PacketOverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * @return The counts of what happened to the packets this limit applied to.
+	 */
+	public PacketRateCounts getCounts() {
+		return counts;
+	}
+
+	/**
+	 * @return The number of packets handled, including deferred packets handled later.
+	 */
+	public long getAcceptedCount() {
+		return counts.getAcceptedCount();
+	}
+
+	/**
+	 * @return The number of packets queued for later.
+	 */
+	public long getDeferredCount() {
+		return counts.getDeferredCount();
+	}
+
+	/**
+	 * @return The number of packets discarded, including packets which did not fit in the queue.
+	 */
+	public long getDroppedCount() {
+		return counts.getDroppedCount();
+	}
+
+	/**
+	 * @return The number of packets which caused their sender to be disconnected.
+	 */
+	public long getKickedCount() {
+		return counts.getKickedCount();
+	}
+}
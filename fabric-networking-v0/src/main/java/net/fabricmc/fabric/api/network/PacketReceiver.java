@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+import net.minecraft.util.PacketByteBuf;
+
+/**
+ * Interface for receiving CustomPayload-based packets in two steps: decoding the
+ * payload into a message on the thread given by its {@link PacketThreadMode},
+ * then applying the message on the main thread.
+ * <p>
+ * Messages received from the same connection through receivers are applied in the
+ * order their packets arrived, even if they are decoded concurrently.
+ *
+ * @param <T> The decoded message type.
+ */
+public interface PacketReceiver<T> {
+	/**
+	 * Decode a received packet.
+	 * <p>
+	 * The buffer is released once this method returns, so it must not be kept around.
+	 * Unless the thread mode is {@link PacketThreadMode#MAIN}, this is called outside
+	 * of the main thread and must not touch the game state.
+	 *
+	 * @param context The context (receiving player, side, etc.)
+	 * @param buffer  The byte buffer containing the received packet data.
+	 * @return The decoded message, or null to skip applying it.
+	 */
+	T decode(PacketContext context, PacketByteBuf buffer);
+
+	/**
+	 * Apply a decoded message. This is always called on the main thread.
+	 *
+	 * @param context The context (receiving player, side, etc.)
+	 * @param message The decoded message.
+	 */
+	void apply(PacketContext context, T message);
+}
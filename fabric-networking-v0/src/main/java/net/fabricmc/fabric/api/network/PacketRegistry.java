@@ -16,6 +16,8 @@
 
 package net.fabricmc.fabric.api.network;
 
+import net.fabricmc.fabric.impl.network.PacketCodecSupport;
+import net.fabricmc.fabric.impl.network.PacketThreadDispatcher;
 import net.minecraft.network.Packet;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.PacketByteBuf;
@@ -31,13 +33,95 @@ public interface PacketRegistry {
 	 */
 	Packet<?> toPacket(Identifier id, PacketByteBuf buf);
 
+	/**
+	 * Turn a message into a "custom payload" packet suitable for sending in
+	 * the PacketRegistry's sending direction, encoding it with the given codec.
+	 *
+	 * @param id      The identifier.
+	 * @param codec   The codec encoding the message.
+	 * @param message The message.
+	 * @param <T>     The message type.
+	 * @return The packet.
+	 */
+	default <T> Packet<?> toPacket(Identifier id, PacketCodec<T> codec, T message) {
+		return toPacket(id, PacketCodecSupport.encode(codec, message));
+	}
+
 	/**
 	 * Register a packet.
 	 *
 	 * @param id       The packet Identifier.
 	 * @param consumer The method used for handling the packet.
 	 */
-	void register(Identifier id, PacketConsumer consumer);
+	default void register(Identifier id, PacketConsumer consumer) {
+		register(id, consumer, PacketBufferMode.COPY);
+	}
+
+	/**
+	 * Register a packet, choosing how its payload is handed to the consumer.
+	 * <p>
+	 * {@link PacketBufferMode#RETAINED_SLICE} avoids copying every received
+	 * payload, which matters for channels receiving large amounts of data.
+	 *
+	 * @param id         The packet Identifier.
+	 * @param consumer   The method used for handling the packet.
+	 * @param bufferMode The way the payload is handed to the consumer.
+	 */
+	void register(Identifier id, PacketConsumer consumer, PacketBufferMode bufferMode);
+
+	/**
+	 * Register a packet, decoding it on the thread given by the thread mode
+	 * and applying it on the main thread.
+	 * <p>
+	 * This keeps expensive decoding out of the main thread, without having
+	 * to hand work over to the task queue manually.
+	 *
+	 * @param id         The packet Identifier.
+	 * @param threadMode The thread the packet is decoded on.
+	 * @param receiver   The receiver decoding and applying the packet.
+	 * @param <T>        The decoded message type.
+	 */
+	default <T> void register(Identifier id, PacketThreadMode threadMode, PacketReceiver<T> receiver) {
+		register(id, PacketThreadDispatcher.toConsumer(threadMode, receiver), PacketBufferMode.RETAINED_SLICE);
+	}
+
+	/**
+	 * Register a packet, decoding it with the given codec.
+	 * <p>
+	 * The payload is decoded straight from the received packet without copying it,
+	 * and codecs may reuse previously decoded messages (see {@link PacketCodec#decode(PacketByteBuf, Object)}).
+	 *
+	 * @param id       The packet Identifier.
+	 * @param codec    The codec decoding the packet.
+	 * @param consumer The method used for handling the decoded message.
+	 * @param <T>      The message type.
+	 */
+	default <T> void register(Identifier id, PacketCodec<T> codec, PacketMessageConsumer<T> consumer) {
+		register(id, PacketCodecSupport.toConsumer(codec, consumer), PacketBufferMode.RETAINED_SLICE);
+	}
+
+	/**
+	 * Set how the payloads of a channel are compressed, or disable compression.
+	 * <p>
+	 * Compression is negotiated: payloads are only compressed when the other side set the same
+	 * compression for the channel on its own registry, and only if they are at least as large as
+	 * the compression's threshold. Payloads which compression would not make smaller are sent
+	 * uncompressed. This applies to payloads sent to a given connection through the
+	 * identifier/buffer-based send methods; packets created with {@link #toPacket(Identifier, PacketByteBuf)}
+	 * are never compressed.
+	 * <p>
+	 * Setting a compression also announces the ability to receive compressed payloads for the
+	 * channel, so it should be set on both sides, before connecting.
+	 *
+	 * @param id          The packet Identifier.
+	 * @param compression The compression, or null to disable it.
+	 */
+	void setCompression(Identifier id, PacketCompression compression);
+
+	/**
+	 * @return The statistics of the packets sent and received through this registry.
+	 */
+	PacketStatistics getStatistics();
 
 	/**
 	 * Unregister a packet.
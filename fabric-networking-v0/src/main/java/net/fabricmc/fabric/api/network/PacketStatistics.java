@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Packet and byte counts of CustomPayload-based packets, per channel.
+ * <p>
+ * Statistics are kept both for a whole registry ({@link PacketRegistry#getStatistics()}) and
+ * for every connection to a player ({@link ServerSidePacketRegistry#getStatistics(net.minecraft.entity.player.PlayerEntity)}).
+ * Byte counts are payload sizes, excluding the channel identifier and the packet framing.
+ */
+public final class PacketStatistics {
+	private final Map<Identifier, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * @return The statistics of a channel, created if needed.
+	 */
+	public Entry get(Identifier id) {
+		Entry entry = entries.get(id);
+		return entry != null ? entry : entries.computeIfAbsent(id, Entry::new);
+	}
+
+	/**
+	 * @return A snapshot of the statistics of every channel which sent or received packets.
+	 */
+	public List<Entry> getEntries() {
+		return new ArrayList<>(entries.values());
+	}
+
+	/**
+	 * Reset the statistics of all channels.
+	 */
+	public void reset() {
+		for (Entry entry : entries.values()) {
+			entry.reset();
+		}
+	}
+
+	public static final class Entry {
+		private final Identifier id;
+		private final LongAdder packetsReceived = new LongAdder();
+		private final LongAdder bytesReceived = new LongAdder();
+		private final LongAdder packetsSent = new LongAdder();
+		private final LongAdder bytesSent = new LongAdder();
+		private final LongAdder handlerNanos = new LongAdder();
+		private final LongAccumulator maxHandlerNanos = new LongAccumulator(Math::max, 0);
+
+		private Entry(Identifier id) {
+			this.id = id;
+		}
+
+		/**
+		 * Record a received packet.
+		 *
+		 * @param bytes        The payload size.
+		 * @param handlerNanos The time spent in the packet's consumer.
+		 */
+		public void recordReceived(int bytes, long handlerNanos) {
+			packetsReceived.increment();
+			bytesReceived.add(bytes);
+			this.handlerNanos.add(handlerNanos);
+			maxHandlerNanos.accumulate(handlerNanos);
+		}
+
+		/**
+		 * Record a sent packet.
+		 *
+		 * @param bytes The payload size.
+		 */
+		public void recordSent(int bytes) {
+			packetsSent.increment();
+			bytesSent.add(bytes);
+		}
+
+		private void reset() {
+			packetsReceived.reset();
+			bytesReceived.reset();
+			packetsSent.reset();
+			bytesSent.reset();
+			handlerNanos.reset();
+			maxHandlerNanos.reset();
+		}
+
+		public Identifier getId() {
+			return id;
+		}
+
+		public long getPacketsReceived() {
+			return packetsReceived.sum();
+		}
+
+		public long getBytesReceived() {
+			return bytesReceived.sum();
+		}
+
+		public long getPacketsSent() {
+			return packetsSent.sum();
+		}
+
+		public long getBytesSent() {
+			return bytesSent.sum();
+		}
+
+		/**
+		 * @return The total time spent in the consumers of received packets. For packets registered
+		 * with a {@link PacketReceiver}, this only covers the work done on the network thread.
+		 */
+		public long getHandlerNanos() {
+			return handlerNanos.sum();
+		}
+
+		public long getMaxHandlerNanos() {
+			return maxHandlerNanos.get();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.network;
+
+/**
+ * The thread a {@link PacketReceiver} decodes packets on. Decoded packets are
+ * always applied on the main thread.
+ */
+public enum PacketThreadMode {
+	/**
+	 * Decode on the network I/O thread which received the packet. Suitable for
+	 * cheap decoding, as it delays the processing of further packets.
+	 */
+	NETTY,
+	/**
+	 * Decode on the main thread, in the same task which applies the packet.
+	 */
+	MAIN,
+	/**
+	 * Decode on a worker pool shared by all receivers. Suitable for expensive
+	 * decoding, which then neither blocks network I/O nor the tick.
+	 */
+	WORKER
+}
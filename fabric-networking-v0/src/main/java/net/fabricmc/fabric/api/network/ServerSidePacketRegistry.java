@@ -18,6 +18,7 @@ package net.fabricmc.fabric.api.network;
 
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import net.fabricmc.fabric.api.server.PlayerAudience;
 import net.fabricmc.fabric.api.server.PlayerStream;
 import net.fabricmc.fabric.impl.network.ServerSidePacketRegistryImpl;
 import net.minecraft.entity.player.PlayerEntity;
@@ -33,7 +34,8 @@ import net.minecraft.util.PacketByteBuf;
  * - registering server-side packet receivers (client -&gt; server packets)
  * - sending packets to clients (server -&gt; client packets).
  * <p>
- * For iterating over clients in a server, see {@link PlayerStream}.
+ * For iterating over clients in a server, see {@link PlayerStream}. For sending
+ * the same packet to many clients, see {@link PlayerAudience}.
  */
 public interface ServerSidePacketRegistry extends PacketRegistry {
 	static final ServerSidePacketRegistry INSTANCE = new ServerSidePacketRegistryImpl();
@@ -47,6 +49,32 @@ public interface ServerSidePacketRegistry extends PacketRegistry {
 	 */
 	boolean canPlayerReceive(PlayerEntity player, Identifier id);
 
+	/**
+	 * @param player The given client.
+	 * @return The statistics of the packets exchanged with the client through this registry,
+	 * or null if the player is not connected.
+	 */
+	PacketStatistics getStatistics(PlayerEntity player);
+
+	/**
+	 * Limit the rate at which each client may send packets on a given channel.
+	 * <p>
+	 * Packets exceeding the limit are handled according to its {@link PacketOverflowPolicy}.
+	 * Rate limits only apply to channels handled by this registry.
+	 *
+	 * @param id    The packet identifier.
+	 * @param limit The rate limit, or null to remove the channel's own limit.
+	 */
+	void setRateLimit(Identifier id, PacketRateLimit limit);
+
+	/**
+	 * Set the rate limit applied to the channels handled by this registry without a limit of their own.
+	 * These channels share the limit: it applies to the packets they receive as a whole.
+	 *
+	 * @param limit The rate limit, or null to not limit such channels.
+	 */
+	void setDefaultRateLimit(PacketRateLimit limit);
+
 	/**
 	 * Send a packet to a given client.
 	 *
@@ -90,4 +118,79 @@ public interface ServerSidePacketRegistry extends PacketRegistry {
 	default void sendToPlayer(PlayerEntity player, Identifier id, PacketByteBuf buf) {
 		sendToPlayer(player, id, buf, null);
 	}
+
+	/**
+	 * Send a message to a given client, encoding it with the given codec.
+	 *
+	 * @param player  The given client.
+	 * @param id      The packet identifier.
+	 * @param codec   The codec encoding the message.
+	 * @param message The message.
+	 * @param <T>     The message type.
+	 */
+	default <T> void sendToPlayer(PlayerEntity player, Identifier id, PacketCodec<T> codec, T message) {
+		sendToPlayer(player, toPacket(id, codec, message), null);
+	}
+
+	/**
+	 * Send a packet to every player of an audience.
+	 *
+	 * @param audience The audience.
+	 * @param packet   The packet to be sent, which is shared by every player.
+	 */
+	void sendToAudience(PlayerAudience audience, Packet<?> packet);
+
+	/**
+	 * Send an identifier/buffer-based packet to every player of an audience.
+	 * <p>
+	 * The payload is shared by every player's packet, rather than copied for each of them.
+	 * If the channel is compressed (see {@link #setCompression(Identifier, PacketCompression)}),
+	 * the payload is compressed at most once as well.
+	 *
+	 * @param audience The audience.
+	 * @param id       The packet identifier.
+	 * @param buf      The packet byte buffer.
+	 */
+	void sendToAudience(PlayerAudience audience, Identifier id, PacketByteBuf buf);
+
+	/**
+	 * Check if payloads sent on a given channel would be compressed for a given player,
+	 * because the channel is compressed and the player's client declared support for it.
+	 * <p>
+	 * Together with {@link #toCompressedPacket(Identifier, PacketByteBuf)}, this allows keeping
+	 * both variants of a packet which is sent to many players over time.
+	 *
+	 * @param id The packet identifier.
+	 * @return True if the player can receive the channel's compressed payloads.
+	 */
+	boolean canPlayerReceiveCompressed(PlayerEntity player, Identifier id);
+
+	/**
+	 * Turn a payload into a packet, compressing it if the channel is compressed and the payload
+	 * reaches the compression threshold, regardless of which players can receive it. The packet
+	 * should only be sent to players for which {@link #canPlayerReceiveCompressed} is true, unless
+	 * the payload was sent uncompressed because compression would not have made it smaller.
+	 *
+	 * @param id  The packet identifier.
+	 * @param buf The packet byte buffer.
+	 * @return The packet, which may be shared by several players.
+	 */
+	Packet<?> toCompressedPacket(Identifier id, PacketByteBuf buf);
+
+	/**
+	 * Queue an identifier/buffer-based packet to be sent to a given client at the end of the current tick.
+	 * <p>
+	 * All packets queued for a client during a tick are framed into as few "fabric:bundle" packets as
+	 * possible, saving the per-packet overhead when sending many small packets. Clients which did not
+	 * declare the ability to receive bundles receive the packet immediately instead, as with
+	 * {@link #sendToPlayer(PlayerEntity, Identifier, PacketByteBuf)}.
+	 * <p>
+	 * Only packets received through a {@link PacketRegistry} on the client can be bundled, and the order
+	 * of bundled packets relative to packets sent directly is not preserved.
+	 *
+	 * @param player The given client.
+	 * @param id     The packet identifier.
+	 * @param buf    The packet byte buffer. Its contents must not be modified until the end of the tick.
+	 */
+	void sendToPlayerBundled(PlayerEntity player, Identifier id, PacketByteBuf buf);
 }
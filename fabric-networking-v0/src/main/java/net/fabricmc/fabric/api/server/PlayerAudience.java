@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.api.server;
+
+import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.fabricmc.fabric.impl.server.CachedPlayerAudience;
+import net.fabricmc.fabric.impl.server.EntityTrackerStorageAccessor;
+import net.fabricmc.fabric.impl.server.PlayerSpatialIndex;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.server.world.ThreadedAnvilChunkStorage;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkManager;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A reusable set of players, for sending packets with
+ * {@link ServerSidePacketRegistry#sendToAudience(PlayerAudience, net.minecraft.util.Identifier, net.minecraft.util.PacketByteBuf)}.
+ * <p>
+ * Audiences are meant to be created once and kept around (for example, one per block entity),
+ * rather than created for every packet: audiences which have to be computed are only computed
+ * once per tick, no matter how often they are used. Unlike {@link PlayerStream}, they
+ * should only be used on the server thread.
+ */
+@FunctionalInterface
+public interface PlayerAudience {
+	/**
+	 * @return The players currently in the audience. The returned collection must not be modified,
+	 * and may be reused or change after the current tick.
+	 */
+	Collection<ServerPlayerEntity> getPlayers();
+
+	static PlayerAudience all(MinecraftServer server) {
+		return () -> server.getPlayerManager() != null ? server.getPlayerManager().getPlayerList() : Collections.emptyList();
+	}
+
+	static PlayerAudience world(World world) {
+		ServerWorld serverWorld = CachedPlayerAudience.toServerWorld(world);
+		return serverWorld::getPlayers;
+	}
+
+	static PlayerAudience watching(World world, ChunkPos pos) {
+		ServerWorld serverWorld = CachedPlayerAudience.toServerWorld(world);
+		ThreadedAnvilChunkStorage storage = ((ServerChunkManager) serverWorld.getChunkManager()).threadedAnvilChunkStorage;
+		return new CachedPlayerAudience(serverWorld.getServer(), (players) -> storage.getPlayersWatchingChunk(pos, false).forEach(players::add));
+	}
+
+	/**
+	 * Warning: If the provided entity is a PlayerEntity themselves, it is not
+	 * guaranteed by the contract that said PlayerEntity is included in the
+	 * audience.
+	 */
+	@SuppressWarnings("JavaDoc")
+	static PlayerAudience watching(Entity entity) {
+		ChunkManager manager = entity.getEntityWorld().getChunkManager();
+
+		if (manager instanceof ServerChunkManager) {
+			ThreadedAnvilChunkStorage storage = ((ServerChunkManager) manager).threadedAnvilChunkStorage;
+			if (storage instanceof EntityTrackerStorageAccessor) {
+				// the tracker's own set is always up to date, so it is used directly
+				return () -> ((EntityTrackerStorageAccessor) storage).fabric_getTrackingPlayerSet(entity);
+			}
+		}
+
+		// fallback
+		return watching(entity.getEntityWorld(), new ChunkPos((int) (entity.x / 16.0D), (int) (entity.z / 16.0D)));
+	}
+
+	static PlayerAudience around(World world, Vec3d vector, double radius) {
+		ServerWorld serverWorld = CachedPlayerAudience.toServerWorld(world);
+		PlayerSpatialIndex index = PlayerSpatialIndex.get(serverWorld);
+		return new CachedPlayerAudience(serverWorld.getServer(), (players) -> index.collectAround(vector.x, vector.y, vector.z, radius, players));
+	}
+}
@@ -17,6 +17,7 @@
 package net.fabricmc.fabric.api.server;
 
 import net.fabricmc.fabric.impl.server.EntityTrackerStorageAccessor;
+import net.fabricmc.fabric.impl.server.PlayerSpatialIndex;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerEntity;
@@ -31,6 +32,9 @@ import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.ChunkManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -100,12 +104,35 @@ public final class PlayerStream {
 	}
 
 	public static Stream<PlayerEntity> around(World world, Vec3d vector, double radius) {
-		double radiusSq = radius * radius;
-		return world(world).filter((p) -> p.squaredDistanceTo(vector) <= radiusSq);
+		List<PlayerEntity> players = new ArrayList<>();
+		getSpatialIndex(world).collectAround(vector.x, vector.y, vector.z, radius, players);
+		return players.stream();
 	}
 
 	public static Stream<PlayerEntity> around(World world, BlockPos pos, double radius) {
-		double radiusSq = radius * radius;
-		return world(world).filter((p) -> p.squaredDistanceTo(pos.getX(), pos.getY(), pos.getZ()) <= radiusSq);
+		List<PlayerEntity> players = new ArrayList<>();
+		getSpatialIndex(world).collectAround(pos.getX(), pos.getY(), pos.getZ(), radius, players);
+		return players.stream();
+	}
+
+	/**
+	 * Add the players around a position to a collection, which can be reused
+	 * between calls to avoid creating a stream every time.
+	 *
+	 * @param world   The world.
+	 * @param vector  The position.
+	 * @param radius  The maximum distance of the players to the position.
+	 * @param players The collection receiving the players.
+	 */
+	public static void collectAround(World world, Vec3d vector, double radius, Collection<? super ServerPlayerEntity> players) {
+		getSpatialIndex(world).collectAround(vector.x, vector.y, vector.z, radius, players);
+	}
+
+	private static PlayerSpatialIndex getSpatialIndex(World world) {
+		if (world instanceof ServerWorld) {
+			return PlayerSpatialIndex.get((ServerWorld) world);
+		} else {
+			throw new RuntimeException("Only supported on ServerWorld!");
+		}
 	}
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import net.minecraft.util.Identifier;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns channel identifiers into small integers, so that per-connection channel sets
+ * can be stored as bitsets.
+ * <p>
+ * Only channels with a local handler are interned, never ones merely announced by a
+ * connection. Raw ids are never released, so their number is still capped: channels
+ * registered past the cap are not interned, and have to be stored some other way.
+ */
+public final class ChannelIds {
+	static final int MAX_IDS = 65536;
+
+	private static final Map<Identifier, Integer> RAW_IDS = new ConcurrentHashMap<>();
+	private static volatile Identifier[] ids = new Identifier[64];
+	private static int size;
+
+	private ChannelIds() {
+
+	}
+
+	/**
+	 * @return The raw id of a channel, interning it if needed, or -1 if the cap has been reached.
+	 */
+	public static int getOrCreate(Identifier id) {
+		Integer rawId = RAW_IDS.get(id);
+
+		if (rawId != null) {
+			return rawId;
+		}
+
+		synchronized (RAW_IDS) {
+			rawId = RAW_IDS.get(id);
+
+			if (rawId != null) {
+				return rawId;
+			} else if (size >= MAX_IDS) {
+				return -1;
+			}
+
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+
+			ids[size] = id;
+			RAW_IDS.put(id, size);
+			return size++;
+		}
+	}
+
+	/**
+	 * @return The raw id of a channel, or -1 if it has not been interned.
+	 */
+	public static int get(Identifier id) {
+		Integer rawId = RAW_IDS.get(id);
+		return rawId != null ? rawId : -1;
+	}
+
+	/**
+	 * @return The channel with the given raw id.
+	 */
+	public static Identifier byRawId(int rawId) {
+		return ids[rawId];
+	}
+}
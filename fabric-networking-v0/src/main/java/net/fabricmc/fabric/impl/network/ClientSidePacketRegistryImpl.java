@@ -20,7 +20,10 @@ import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import net.fabricmc.fabric.api.event.network.S2CPacketTypeCallback;
 import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.api.network.LoginQueryResponder;
+import net.fabricmc.fabric.api.network.PacketBufferMode;
 import net.fabricmc.fabric.api.network.PacketContext;
+import net.fabricmc.fabric.api.network.PacketStatistics;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.network.Packet;
@@ -29,16 +32,35 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.PacketByteBuf;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClientSidePacketRegistryImpl extends PacketRegistryImpl implements ClientSidePacketRegistry {
 	private final Collection<Identifier> serverPayloadIds = new HashSet<>();
+	private final Map<Identifier, LoginQueryResponder> loginQueryResponders = new ConcurrentHashMap<>();
+
+	public ClientSidePacketRegistryImpl() {
+		// registered like any other channel, so that the server learns that bundles can be sent
+		register(PacketTypes.BUNDLE, (context, buf) -> PacketBundler.unbundle(this, context, buf), PacketBufferMode.RETAINED_SLICE);
+		registerLoginQuery(PacketTypes.LOGIN_REGISTER, (payload) -> writeIdentifiers(getRegisteredIds()));
+	}
 
 	public static void invalidateRegisteredIdList() {
 		((ClientSidePacketRegistryImpl) ClientSidePacketRegistry.INSTANCE).serverPayloadIds.clear();
 	}
 
+	@Override
+	public void registerLoginQuery(Identifier channel, LoginQueryResponder responder) {
+		if (loginQueryResponders.put(channel, responder) != null) {
+			LOGGER.warn("Registered duplicate login query " + channel + "!");
+		}
+	}
+
+	public LoginQueryResponder getLoginQueryResponder(Identifier channel) {
+		return loginQueryResponders.get(channel);
+	}
+
 	@Override
 	public boolean canServerReceive(Identifier id) {
 		return serverPayloadIds.contains(id);
@@ -48,6 +70,8 @@ public class ClientSidePacketRegistryImpl extends PacketRegistryImpl implements
 	public void sendToServer(Packet<?> packet, GenericFutureListener<? extends Future<? super Void>> completionListener) {
 		ClientPlayNetworkHandler handler = MinecraftClient.getInstance().getNetworkHandler();
 		if (handler != null) {
+			recordSent(packet);
+
 			if (completionListener == null) {
 				// stay closer to the vanilla codepath
 				handler.sendPacket(packet);
@@ -59,27 +83,38 @@ public class ClientSidePacketRegistryImpl extends PacketRegistryImpl implements
 		}
 	}
 
+	@Override
+	public void sendToServer(Identifier id, PacketByteBuf buf, GenericFutureListener<? extends Future<? super Void>> completionListener) {
+		sendToServer(toPacket(id, buf, this::canServerReceive), completionListener);
+	}
+
 	@Override
 	public Packet<?> toPacket(Identifier id, PacketByteBuf buf) {
 		return new CustomPayloadC2SPacket(id, buf);
 	}
 
 	@Override
-	protected void onRegister(Identifier id) {
+	protected void sendToAllConnections(Packet<?> packet) {
 		ClientPlayNetworkHandler handler = MinecraftClient.getInstance().getNetworkHandler();
 		if (handler != null) {
-			createRegisterTypePacket(PacketTypes.REGISTER, Collections.singleton(id)).ifPresent(handler::sendPacket);
+			recordSent(packet);
+			handler.sendPacket(packet);
 		}
 	}
 
-	@Override
-	protected void onUnregister(Identifier id) {
-		ClientPlayNetworkHandler handler = MinecraftClient.getInstance().getNetworkHandler();
-		if (handler != null) {
-			createRegisterTypePacket(PacketTypes.UNREGISTER, Collections.singleton(id)).ifPresent(handler::sendPacket);
+	private void recordSent(Packet<?> packet) {
+		if (packet instanceof CustomPayloadC2SPacket) {
+			CustomPayloadC2SPacketAccessor accessor = (CustomPayloadC2SPacketAccessor) packet;
+			recordSent(accessor.getChannel(), accessor.getRawData(), null);
 		}
 	}
 
+	@Override
+	protected PacketStatistics getConnectionStatistics(PacketContext context) {
+		// there is only one connection, whose statistics are the registry's own
+		return null;
+	}
+
 	@Override
 	protected Collection<Identifier> getIdCollectionFor(PacketContext context) {
 		return serverPayloadIds;
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.network.PacketCompression;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A channel whose payloads are compressed, together with the channel carrying the
+ * compressed payloads.
+ * <p>
+ * Compressed payloads are sent on a separate channel, named after the original channel
+ * and the dictionary used, which the receiving side registers. Whether the other side
+ * registered it tells whether it can decompress the payloads, so the regular REGISTER
+ * handshake doubles as the negotiation.
+ * <p>
+ * Compressed payloads consist of the uncompressed length as a VarInt, followed by the
+ * deflate stream.
+ */
+final class CompressedChannel {
+	/**
+	 * Larger uncompressed payloads are rejected, so that small packets cannot inflate into huge buffers.
+	 */
+	private static final int MAX_UNCOMPRESSED_SIZE = 8388608;
+	/**
+	 * Deflate cannot compress better than about 1032:1, so a larger declared length is a lie.
+	 */
+	private static final int MAX_COMPRESSION_RATIO = 1032;
+	private static final int CHUNK_SIZE = 8192;
+
+	final Identifier id;
+	final Identifier compressedId;
+	final int threshold;
+	private final byte[] dictionary;
+	private final int dictionaryAdler;
+	// (de)compressors are expensive to create and not thread-safe, so every thread keeps its own
+	private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(Deflater::new);
+	private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+	CompressedChannel(Identifier id, PacketCompression compression) {
+		this.id = id;
+		this.threshold = compression.getThreshold();
+		this.dictionary = compression.getDictionary();
+
+		if (dictionary != null) {
+			Adler32 adler = new Adler32();
+			adler.update(dictionary);
+			this.dictionaryAdler = (int) adler.getValue();
+			this.compressedId = new Identifier("fabric", String.format("deflate_%08x/%s/%s", dictionaryAdler, id.getNamespace(), id.getPath()));
+		} else {
+			this.dictionaryAdler = 0;
+			this.compressedId = new Identifier("fabric", "deflate/" + id.getNamespace() + "/" + id.getPath());
+		}
+	}
+
+	/**
+	 * @return The compressed payload, with its length as a header, or null if it would not be smaller than the payload.
+	 */
+	PacketByteBuf compress(PacketByteBuf buf) {
+		int length = buf.readableBytes();
+		Deflater deflater = deflaters.get();
+		deflater.reset();
+
+		if (dictionary != null) {
+			deflater.setDictionary(dictionary);
+		}
+
+		if (buf.hasArray()) {
+			deflater.setInput(buf.array(), buf.arrayOffset() + buf.readerIndex(), length);
+		} else {
+			byte[] input = new byte[length];
+			buf.getBytes(buf.readerIndex(), input);
+			deflater.setInput(input);
+		}
+
+		deflater.finish();
+
+		PacketByteBuf out = new PacketByteBuf(Unpooled.buffer(length / 2 + 16));
+		out.writeVarInt(length);
+		byte[] chunk = new byte[CHUNK_SIZE];
+
+		while (!deflater.finished()) {
+			int written = deflater.deflate(chunk);
+			out.writeBytes(chunk, 0, written);
+
+			if (out.writerIndex() >= length) {
+				// incompressible, no need to deflate the rest
+				out = null;
+				break;
+			}
+		}
+
+		// drop the reference to the input array
+		deflater.reset();
+		return out;
+	}
+
+	PacketByteBuf decompress(PacketByteBuf buf) throws DataFormatException {
+		int length = buf.readVarInt();
+
+		if (length < 0 || length > MAX_UNCOMPRESSED_SIZE) {
+			throw new DataFormatException("Invalid uncompressed length " + length);
+		} else if (length > (long) buf.readableBytes() * MAX_COMPRESSION_RATIO + 64) {
+			throw new DataFormatException("Uncompressed length " + length + " is implausible for " + buf.readableBytes() + " compressed bytes");
+		}
+
+		byte[] input = new byte[buf.readableBytes()];
+		buf.readBytes(input);
+
+		Inflater inflater = inflaters.get();
+		inflater.reset();
+		inflater.setInput(input);
+
+		// grown as the payload is actually inflated, rather than trusting the declared length up front
+		ByteBuf output = Unpooled.buffer(Math.min(length, Math.max(CHUNK_SIZE, input.length * 4)), length);
+		byte[] chunk = new byte[CHUNK_SIZE];
+
+		try {
+			while (output.writerIndex() < length) {
+				int n = inflater.inflate(chunk, 0, Math.min(CHUNK_SIZE, length - output.writerIndex()));
+
+				if (n == 0) {
+					if (inflater.needsDictionary()) {
+						if (dictionary == null || inflater.getAdler() != dictionaryAdler) {
+							throw new DataFormatException("Payload was compressed with an unknown dictionary");
+						}
+
+						inflater.setDictionary(dictionary);
+					} else if (inflater.finished() || inflater.needsInput()) {
+						throw new DataFormatException("Payload is shorter than its declared length " + length);
+					}
+				}
+
+				output.writeBytes(chunk, 0, n);
+			}
+		} finally {
+			inflater.reset();
+		}
+
+		return new PacketByteBuf(output);
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import net.minecraft.util.Identifier;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The channels a connection declared the ability to receive.
+ * <p>
+ * Channels with a local handler are stored as a bitset of interned {@link ChannelIds}; any
+ * other channel the remote side announces is kept in a plain set, so that a connection
+ * cannot fill the global intern table. Both are replaced rather than modified on every
+ * change: changes are rare, while lookups happen for every packet sent and must not need
+ * any locking.
+ */
+public final class ConnectionChannels extends AbstractCollection<Identifier> {
+	private static final long[] EMPTY = new long[0];
+
+	private volatile long[] bits = EMPTY;
+	/**
+	 * Channels which have not been interned, because no local handler is registered for them.
+	 */
+	private volatile Set<Identifier> uninterned = Collections.emptySet();
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Identifier)) {
+			return false;
+		}
+
+		int rawId = ChannelIds.get((Identifier) o);
+
+		// a channel may have been interned after it was added
+		if (rawId >= 0 && contains(rawId)) {
+			return true;
+		}
+
+		Set<Identifier> uninterned = this.uninterned;
+		return !uninterned.isEmpty() && uninterned.contains(o);
+	}
+
+	public boolean contains(int rawId) {
+		long[] bits = this.bits;
+		int index = rawId >>> 6;
+		return index < bits.length && (bits[index] & (1L << rawId)) != 0;
+	}
+
+	@Override
+	public boolean add(Identifier id) {
+		return addAll(Collections.singleton(id));
+	}
+
+	@Override
+	public synchronized boolean addAll(Collection<? extends Identifier> ids) {
+		long[] newBits = null;
+		Set<Identifier> newUninterned = null;
+
+		for (Identifier id : ids) {
+			if (contains(id)) {
+				continue;
+			}
+
+			int rawId = ChannelIds.get(id);
+
+			if (rawId < 0) {
+				if (newUninterned == null) {
+					newUninterned = new HashSet<>(uninterned);
+				}
+
+				newUninterned.add(id);
+			} else {
+				int index = rawId >>> 6;
+
+				if (newBits == null) {
+					newBits = bits.clone();
+				}
+
+				if (index >= newBits.length) {
+					newBits = Arrays.copyOf(newBits, index + 1);
+				}
+
+				newBits[index] |= 1L << rawId;
+			}
+		}
+
+		if (newBits != null) {
+			bits = newBits;
+		}
+
+		if (newUninterned != null) {
+			uninterned = newUninterned;
+		}
+
+		return newBits != null || newUninterned != null;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return removeAll(Collections.singleton(o));
+	}
+
+	@Override
+	public synchronized boolean removeAll(Collection<?> c) {
+		long[] newBits = null;
+		Set<Identifier> newUninterned = null;
+
+		for (Object o : c) {
+			if (!(o instanceof Identifier)) {
+				continue;
+			}
+
+			int rawId = ChannelIds.get((Identifier) o);
+
+			if (rawId >= 0 && contains(rawId)) {
+				if (newBits == null) {
+					newBits = bits.clone();
+				}
+
+				newBits[rawId >>> 6] &= ~(1L << rawId);
+			}
+
+			if (uninterned.contains(o)) {
+				if (newUninterned == null) {
+					newUninterned = new HashSet<>(uninterned);
+				}
+
+				newUninterned.remove(o);
+			}
+		}
+
+		if (newBits != null) {
+			bits = newBits;
+		}
+
+		if (newUninterned != null) {
+			uninterned = newUninterned;
+		}
+
+		return newBits != null || newUninterned != null;
+	}
+
+	@Override
+	public synchronized void clear() {
+		bits = EMPTY;
+		uninterned = Collections.emptySet();
+	}
+
+	@Override
+	public int size() {
+		int size = uninterned.size();
+
+		for (long word : bits) {
+			size += Long.bitCount(word);
+		}
+
+		return size;
+	}
+
+	@Override
+	public Iterator<Identifier> iterator() {
+		long[] bits = this.bits;
+		Iterator<Identifier> uninternedIterator = uninterned.iterator();
+
+		return new Iterator<Identifier>() {
+			private int next = nextSetBit(0);
+
+			private int nextSetBit(int from) {
+				int index = from >>> 6;
+
+				if (index >= bits.length) {
+					return -1;
+				}
+
+				long word = bits[index] & (-1L << from);
+
+				while (true) {
+					if (word != 0) {
+						return (index << 6) + Long.numberOfTrailingZeros(word);
+					} else if (++index >= bits.length) {
+						return -1;
+					}
+
+					word = bits[index];
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0 || uninternedIterator.hasNext();
+			}
+
+			@Override
+			public Identifier next() {
+				if (next >= 0) {
+					Identifier id = ChannelIds.byRawId(next);
+					next = nextSetBit(next + 1);
+					return id;
+				} else if (uninternedIterator.hasNext()) {
+					return uninternedIterator.next();
+				} else {
+					throw new NoSuchElementException();
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import io.netty.channel.Channel;
+import net.fabricmc.fabric.api.network.PacketContext;
+import net.fabricmc.fabric.api.network.PacketOverflowPolicy;
+import net.fabricmc.fabric.api.network.PacketRateLimit;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.text.LiteralText;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Applies {@link PacketRateLimit}s to the packets received from one connection.
+ * <p>
+ * Channels with a limit of their own get their own bucket, while every channel under the
+ * default limit shares a single one, so the number of buckets is bounded by the number of
+ * channels given a limit, whatever the client sends.
+ * <p>
+ * Everything but {@link #setChannel(Channel)} runs on the connection's event loop,
+ * including the handling of deferred packets, so that packet consumers always run
+ * on the thread they expect.
+ */
+public final class ConnectionRateLimiter {
+	private final PacketContext context;
+	private final Map<Identifier, Bucket> buckets = new HashMap<>();
+	private Bucket defaultBucket;
+	private volatile Channel channel;
+	private boolean kicked;
+
+	public ConnectionRateLimiter(PacketContext context) {
+		this.context = context;
+	}
+
+	public void setChannel(Channel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Handle a received packet, if the rate limit allows it.
+	 *
+	 * @param limitedId The channel the limit is set for, which differs from {@code id} for compressed packets.
+	 * @param shared    Whether the limit is the default limit, shared by every channel without one of their own.
+	 * @return Whether or not the packet was handled, discarded or deferred.
+	 */
+	boolean accept(ServerSidePacketRegistryImpl registry, Identifier id, int rawId, Identifier limitedId, PacketByteBuf data, PacketRateLimit limit, boolean shared) {
+		Bucket bucket = shared ? defaultBucket : buckets.get(limitedId);
+
+		if (bucket == null || bucket.limit != limit) {
+			Bucket previous = bucket;
+			bucket = new Bucket(limit);
+
+			if (shared) {
+				defaultBucket = bucket;
+			} else {
+				buckets.put(limitedId, bucket);
+			}
+
+			if (previous != null) {
+				bucket.deferred.addAll(previous.deferred);
+			}
+		}
+
+		bucket.refill();
+
+		// packets must not overtake the packets deferred before them
+		if (bucket.deferred.isEmpty() && bucket.tokens >= 1) {
+			bucket.tokens--;
+			bucket.counts.record(null);
+			return registry.dispatch(id, rawId, context, data);
+		}
+
+		PacketOverflowPolicy policy = limit.getOverflowPolicy();
+
+		if (policy == PacketOverflowPolicy.DEFER) {
+			if (channel != null && bucket.deferred.size() < limit.getQueueCapacity()) {
+				bucket.deferred.add(new DeferredPacket(id, rawId, new PacketByteBuf(data.retainedSlice())));
+				bucket.counts.record(PacketOverflowPolicy.DEFER);
+				registry.scheduleDeferred(this);
+				return true;
+			}
+
+			policy = PacketOverflowPolicy.DROP;
+		}
+
+		bucket.counts.record(policy);
+
+		if (policy == PacketOverflowPolicy.KICK && !kicked) {
+			kicked = true;
+			ServerSidePacketRegistryImpl.LOGGER.warn("Disconnecting " + context.getPlayer().getGameProfile().getName() + " for exceeding the rate limit of " + limitedId + "!");
+			context.getTaskQueue().execute(() -> ((ServerPlayNetworkHandler) context).disconnect(new LiteralText("Too many packets on channel " + limitedId)));
+		}
+
+		return true;
+	}
+
+	/**
+	 * Schedule the handling of deferred packets allowed by the rate limits on the connection's event loop.
+	 */
+	void scheduleDrain(ServerSidePacketRegistryImpl registry) {
+		Channel channel = this.channel;
+
+		if (channel != null) {
+			channel.eventLoop().execute(() -> drain(registry, channel.isOpen()));
+		}
+	}
+
+	private void drain(ServerSidePacketRegistryImpl registry, boolean open) {
+		boolean remaining = defaultBucket != null && drain(registry, defaultBucket, open);
+		Iterator<Map.Entry<Identifier, Bucket>> it = buckets.entrySet().iterator();
+
+		while (it.hasNext()) {
+			Map.Entry<Identifier, Bucket> entry = it.next();
+
+			if (drain(registry, entry.getValue(), open)) {
+				remaining = true;
+			} else if (registry.getRateLimit(entry.getKey()) != entry.getValue().limit) {
+				// the channel's limit was changed or removed since
+				it.remove();
+			}
+		}
+
+		if (remaining) {
+			registry.scheduleDeferred(this);
+		}
+	}
+
+	/**
+	 * @return Whether packets remain deferred in the bucket.
+	 */
+	private boolean drain(ServerSidePacketRegistryImpl registry, Bucket bucket, boolean open) {
+		bucket.refill();
+
+		while (!bucket.deferred.isEmpty() && (!open || bucket.tokens >= 1)) {
+			DeferredPacket packet = bucket.deferred.poll();
+
+			try {
+				if (open) {
+					bucket.tokens--;
+					bucket.counts.record(null);
+					registry.dispatch(packet.id, packet.rawId, context, packet.data);
+				}
+			} finally {
+				packet.data.release();
+			}
+		}
+
+		return !bucket.deferred.isEmpty();
+	}
+
+	private static final class DeferredPacket {
+		private final Identifier id;
+		private final int rawId;
+		private final PacketByteBuf data;
+
+		private DeferredPacket(Identifier id, int rawId, PacketByteBuf data) {
+			this.id = id;
+			this.rawId = rawId;
+			this.data = data;
+		}
+	}
+
+	private static final class Bucket {
+		private final PacketRateLimit limit;
+		private final PacketRateCounts counts;
+		private final Queue<DeferredPacket> deferred = new ArrayDeque<>();
+		private double tokens;
+		private long lastRefill;
+
+		private Bucket(PacketRateLimit limit) {
+			this.limit = limit;
+			this.counts = limit.getCounts();
+			this.tokens = limit.getBurst();
+			this.lastRefill = System.nanoTime();
+		}
+
+		private void refill() {
+			long now = System.nanoTime();
+			tokens = Math.min(limit.getBurst(), tokens + (now - lastRefill) * limit.getPacketsPerSecond() / 1.0E9D);
+			lastRefill = now;
+		}
+	}
+}
@@ -27,4 +27,9 @@ public interface CustomPayloadC2SPacketAccessor {
 	Identifier getChannel();
 
 	PacketByteBuf getData();
+
+	/**
+	 * @return The packet's own buffer, without copying it.
+	 */
+	PacketByteBuf getRawData();
 }
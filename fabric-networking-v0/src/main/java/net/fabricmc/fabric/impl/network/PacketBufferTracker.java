@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.util.Identifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the lifecycle of the buffers handed to packet consumers.
+ * <p>
+ * With {@link PacketDebugOptions#DETECT_BUFFER_LEAKS} enabled, buffers which consumers
+ * retained are tracked, and a warning is logged for any of them which are still not
+ * released after {@link #LEAK_TIMEOUT_SECONDS} seconds.
+ * <p>
+ * Only buffers with a reference count of their own can be tracked: copies, and slices of pooled
+ * buffers. Slices of unpooled buffers share the count of the packet's buffer, which its other
+ * holders change as well, so whether the consumer still holds them cannot be told.
+ */
+final class PacketBufferTracker {
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final long LEAK_TIMEOUT_SECONDS = 30;
+	private static final List<Entry> RETAINED = new ArrayList<>();
+
+	private PacketBufferTracker() {
+
+	}
+
+	/**
+	 * @param buf A buffer about to be handed to a consumer, but not wrapped yet.
+	 * @return Whether the buffer has a reference count of its own, rather than sharing the count of the buffer it derives from.
+	 */
+	static boolean hasOwnRefCnt(ByteBuf buf) {
+		ByteBuf parent = buf.unwrap();
+		// a pooled slice starts with a count of one, while having retained its parent
+		return parent == null || parent.refCnt() != buf.refCnt();
+	}
+
+	/**
+	 * Release a buffer after its consumer returned, unless the consumer already released it.
+	 *
+	 * @param id             The packet identifier.
+	 * @param buf            The buffer handed to the consumer.
+	 * @param expectedRefCnt The reference count of the buffer before it was handed over.
+	 * @param ownRefCnt      Whether the buffer had a reference count of its own, see {@link #hasOwnRefCnt(ByteBuf)}.
+	 */
+	static void release(Identifier id, ByteBuf buf, int expectedRefCnt, boolean ownRefCnt) {
+		int refCnt = buf.refCnt();
+
+		if (refCnt < expectedRefCnt) {
+			// Releasing again would free a buffer which is still in use elsewhere.
+			if (PacketDebugOptions.DETECT_BUFFER_LEAKS) {
+				LOGGER.warn("Consumer of packet " + id + " released a buffer it did not retain!");
+			}
+
+			return;
+		}
+
+		buf.release();
+
+		if (PacketDebugOptions.DETECT_BUFFER_LEAKS) {
+			if (ownRefCnt && refCnt > expectedRefCnt) {
+				synchronized (RETAINED) {
+					RETAINED.add(new Entry(id, buf, expectedRefCnt - 1));
+				}
+			}
+
+			checkLeaks();
+		}
+	}
+
+	private static void checkLeaks() {
+		long now = System.nanoTime();
+
+		synchronized (RETAINED) {
+			Iterator<Entry> it = RETAINED.iterator();
+
+			while (it.hasNext()) {
+				Entry entry = it.next();
+
+				if (entry.buf.refCnt() <= entry.releasedRefCnt) {
+					it.remove();
+				} else if (now - entry.time > TimeUnit.SECONDS.toNanos(LEAK_TIMEOUT_SECONDS)) {
+					LOGGER.warn("Buffer of packet " + entry.id + " is still retained after " + LEAK_TIMEOUT_SECONDS + " seconds, it was probably leaked!");
+					it.remove();
+				}
+			}
+		}
+	}
+
+	private static final class Entry {
+		private final Identifier id;
+		private final ByteBuf buf;
+		/**
+		 * The reference count the buffer has once every consumer released it.
+		 */
+		private final int releasedRefCnt;
+		private final long time = System.nanoTime();
+
+		private Entry(Identifier id, ByteBuf buf, int releasedRefCnt) {
+			this.id = id;
+			this.buf = buf;
+			this.releasedRefCnt = releasedRefCnt;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.network.PacketContext;
+import net.minecraft.network.Packet;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Gathers the custom payloads sent to one connection during a tick, and frames
+ * them into as few "fabric:bundle" packets as possible.
+ * <p>
+ * Each frame consists of the payload's channel identifier, the payload length as
+ * a VarInt, and the payload bytes.
+ */
+final class PacketBundler {
+	/**
+	 * The maximum custom payload size accepted by vanilla clients.
+	 */
+	private static final int MAX_BUNDLE_SIZE = 1048576;
+
+	private final List<Identifier> ids = new ArrayList<>();
+	private final List<PacketByteBuf> payloads = new ArrayList<>();
+
+	void add(Identifier id, PacketByteBuf payload) {
+		ids.add(id);
+		payloads.add(payload);
+	}
+
+	/**
+	 * Send all gathered payloads, bundling them where there is more than one.
+	 *
+	 * @param registry The registry creating the packets.
+	 * @param sender   The consumer sending packets to the connection.
+	 */
+	void flush(PacketRegistryImpl registry, Consumer<Packet<?>> sender) {
+		PacketByteBuf bundle = null;
+		Identifier firstId = null;
+		PacketByteBuf firstPayload = null;
+
+		for (int i = 0; i < ids.size(); i++) {
+			Identifier id = ids.get(i);
+			PacketByteBuf payload = payloads.get(i);
+			int frameSize = getFrameSize(id, payload);
+
+			if (bundle != null && bundle.writerIndex() + frameSize > MAX_BUNDLE_SIZE) {
+				sender.accept(registry.toPacket(PacketTypes.BUNDLE, bundle));
+				bundle = null;
+			}
+
+			if (firstPayload != null && getFrameSize(firstId, firstPayload) + frameSize > MAX_BUNDLE_SIZE) {
+				// the held payload and this one do not fit in a single bundle
+				sender.accept(registry.toPacket(firstId, firstPayload));
+				firstId = null;
+				firstPayload = null;
+			}
+
+			if (frameSize > MAX_BUNDLE_SIZE) {
+				sender.accept(registry.toPacket(id, payload));
+				continue;
+			}
+
+			if (bundle == null) {
+				if (firstPayload == null) {
+					// a single payload is sent as is, without framing
+					firstId = id;
+					firstPayload = payload;
+					continue;
+				}
+
+				bundle = new PacketByteBuf(Unpooled.buffer());
+				writeFrame(bundle, firstId, firstPayload);
+				firstId = null;
+				firstPayload = null;
+			}
+
+			writeFrame(bundle, id, payload);
+		}
+
+		if (bundle != null) {
+			sender.accept(registry.toPacket(PacketTypes.BUNDLE, bundle));
+		} else if (firstPayload != null) {
+			sender.accept(registry.toPacket(firstId, firstPayload));
+		}
+
+		ids.clear();
+		payloads.clear();
+	}
+
+	private static int getFrameSize(Identifier id, PacketByteBuf payload) {
+		int idLength = id.getNamespace().length() + 1 + id.getPath().length();
+		return getVarIntSize(idLength) + idLength + getVarIntSize(payload.readableBytes()) + payload.readableBytes();
+	}
+
+	private static int getVarIntSize(int value) {
+		int size = 1;
+
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+
+		return size;
+	}
+
+	private static void writeFrame(PacketByteBuf bundle, Identifier id, PacketByteBuf payload) {
+		bundle.writeIdentifier(id);
+		bundle.writeVarInt(payload.readableBytes());
+		bundle.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+	}
+
+	/**
+	 * Split a received bundle and pass each payload to the registry, as if it was received on its own.
+	 */
+	static void unbundle(PacketRegistryImpl registry, PacketContext context, PacketByteBuf bundle) {
+		while (bundle.isReadable()) {
+			Identifier id = bundle.readIdentifier();
+			int length = bundle.readVarInt();
+			PacketByteBuf payload = new PacketByteBuf(bundle.readSlice(length));
+
+			if (!registry.accept(id, context, payload)) {
+				PacketRegistryImpl.LOGGER.warn("Received bundled packet for unknown channel " + id + "!");
+			}
+		}
+	}
+}
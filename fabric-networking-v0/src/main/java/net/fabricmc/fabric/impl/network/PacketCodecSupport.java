@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.network.PacketCodec;
+import net.fabricmc.fabric.api.network.PacketConsumer;
+import net.fabricmc.fabric.api.network.PacketMessageConsumer;
+import net.minecraft.util.PacketByteBuf;
+
+/**
+ * Encodes and decodes {@link PacketCodec} messages.
+ */
+public final class PacketCodecSupport {
+	private static final int DEFAULT_SIZE = 256;
+
+	private PacketCodecSupport() {
+
+	}
+
+	/**
+	 * Encode a message into a new packet buffer.
+	 * <p>
+	 * The message is encoded directly into a heap buffer preallocated with the codec's size hint,
+	 * which the packet keeps. It is unpooled, as vanilla never releases the buffers of custom
+	 * payload packets.
+	 */
+	public static <T> PacketByteBuf encode(PacketCodec<T> codec, T message) {
+		int sizeHint = codec.getSizeHint(message);
+		PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer(sizeHint >= 0 ? sizeHint : DEFAULT_SIZE));
+		codec.encode(message, buf);
+		return buf;
+	}
+
+	/**
+	 * Adapt a codec and message consumer into a consumer, to be registered with
+	 * {@link net.fabricmc.fabric.api.network.PacketBufferMode#RETAINED_SLICE}.
+	 */
+	public static <T> PacketConsumer toConsumer(PacketCodec<T> codec, PacketMessageConsumer<T> consumer) {
+		// packets are received on several event loops at once, so every thread decodes into its own message
+		ThreadLocal<T> messages = new ThreadLocal<>();
+
+		return (context, buffer) -> {
+			T message = codec.decode(buffer, messages.get());
+			messages.set(message);
+			consumer.accept(context, message);
+		};
+	}
+}
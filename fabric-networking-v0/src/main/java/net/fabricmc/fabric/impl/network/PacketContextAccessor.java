@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implemented by the network handlers which are {@link net.fabricmc.fabric.api.network.PacketContext}s.
+ */
+public interface PacketContextAccessor {
+	/**
+	 * @return The completion of the last message dispatched by {@link PacketThreadDispatcher} for this connection, or null.
+	 */
+	CompletableFuture<Void> fabric_getDispatchTail();
+
+	void fabric_setDispatchTail(CompletableFuture<Void> tail);
+}
@@ -13,11 +13,14 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package net.fabricmc.fabric.impl.network;
 
 public final class PacketDebugOptions {
-	public static final boolean DISABLE_BUFFER_RELEASES = System.getProperty("fabric.networking.broken.disableBufferReleases", "false").equalsIgnoreCase("true");
+	/**
+	 * Warn about packet buffers which consumers retain without ever releasing,
+	 * or release without having retained them.
+	 */
+	public static final boolean DETECT_BUFFER_LEAKS = System.getProperty("fabric.networking.debug.detectBufferLeaks", "false").equalsIgnoreCase("true");
 
 	private PacketDebugOptions() {
 
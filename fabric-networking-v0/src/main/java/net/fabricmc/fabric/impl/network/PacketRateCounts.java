@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import net.fabricmc.fabric.api.network.PacketOverflowPolicy;
+import net.fabricmc.fabric.api.network.PacketRateLimit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what happened to the packets a {@link PacketRateLimit} applied to.
+ * <p>
+ * Each limit holds its own counts, which only the networking implementation can record.
+ */
+public final class PacketRateCounts {
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder deferred = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder kicked = new LongAdder();
+
+	public PacketRateCounts() {
+
+	}
+
+	/**
+	 * Record what happened to a packet.
+	 *
+	 * @param policy The policy applied to the packet, or null if it was accepted.
+	 */
+	void record(PacketOverflowPolicy policy) {
+		if (policy == null) {
+			accepted.increment();
+		} else {
+			switch (policy) {
+			case DROP:
+				dropped.increment();
+				break;
+			case KICK:
+				kicked.increment();
+				break;
+			case DEFER:
+				deferred.increment();
+				break;
+			}
+		}
+	}
+
+	public long getAcceptedCount() {
+		return accepted.sum();
+	}
+
+	public long getDeferredCount() {
+		return deferred.sum();
+	}
+
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getKickedCount() {
+		return kicked.sum();
+	}
+}
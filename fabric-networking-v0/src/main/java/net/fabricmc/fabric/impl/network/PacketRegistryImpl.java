@@ -16,10 +16,15 @@
 
 package net.fabricmc.fabric.impl.network;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.network.PacketBufferMode;
+import net.fabricmc.fabric.api.network.PacketCompression;
 import net.fabricmc.fabric.api.network.PacketConsumer;
 import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.fabric.api.network.PacketRegistry;
+import net.fabricmc.fabric.api.network.PacketStatistics;
 import net.minecraft.network.Packet;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.InvalidIdentifierException;
@@ -27,13 +32,36 @@ import net.minecraft.util.PacketByteBuf;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.function.Supplier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
 
 public abstract class PacketRegistryImpl implements PacketRegistry {
 	protected static final Logger LOGGER = LogManager.getLogger();
-	protected final Map<Identifier, PacketConsumer> consumerMap;
+	private static final int REGISTER_RAW_ID = ChannelIds.getOrCreate(PacketTypes.REGISTER);
+	private static final int UNREGISTER_RAW_ID = ChannelIds.getOrCreate(PacketTypes.UNREGISTER);
+	/**
+	 * Guarded by the registry itself, as login queries read it off the main thread.
+	 */
+	protected final Map<Identifier, PacketHandler> consumerMap;
+	/**
+	 * The handlers of {@link #consumerMap}, indexed by {@link ChannelIds raw channel id} for dispatching.
+	 * Replaced rather than modified, so that received packets can be dispatched without locking.
+	 */
+	private volatile PacketHandler[] handlersByRawId = new PacketHandler[0];
+	/**
+	 * Registration changes not yet announced to the other side. They are coalesced
+	 * and sent once per tick by {@link #flushPendingChanges()}.
+	 */
+	private final Set<Identifier> pendingRegistrations = new LinkedHashSet<>();
+	private final Set<Identifier> pendingUnregistrations = new LinkedHashSet<>();
+	private final Map<Identifier, CompressedChannel> compressedChannels = new ConcurrentHashMap<>();
+	/**
+	 * The channels of {@link #compressedChannels}, by the id of their compressed channel.
+	 */
+	private final Map<Identifier, Identifier> uncompressedIds = new ConcurrentHashMap<>();
+	private final PacketStatistics statistics = new PacketStatistics();
 
 	PacketRegistryImpl() {
 		consumerMap = new LinkedHashMap<>();
@@ -41,37 +69,214 @@ public abstract class PacketRegistryImpl implements PacketRegistry {
 
 	public static Optional<Packet<?>> createInitialRegisterPacket(PacketRegistry registry) {
 		PacketRegistryImpl impl = (PacketRegistryImpl) registry;
-		return impl.createRegisterTypePacket(PacketTypes.REGISTER, impl.consumerMap.keySet());
+		return impl.createRegisterTypePacket(PacketTypes.REGISTER, impl.getRegisteredIds());
+	}
+
+	/**
+	 * @return A copy of the registered channels, as registrations may change while it is used off the main thread.
+	 */
+	protected synchronized List<Identifier> getRegisteredIds() {
+		return new ArrayList<>(consumerMap.keySet());
 	}
 
 	@Override
-	public void register(Identifier id, PacketConsumer consumer) {
-		boolean isNew = true;
-		if (consumerMap.containsKey(id)) {
-			LOGGER.warn("Registered duplicate packet " + id + "!");
-			LOGGER.trace(new Throwable());
-			isNew = false;
+	public void register(Identifier id, PacketConsumer consumer, PacketBufferMode bufferMode) {
+		boolean isNew;
+		PacketHandler handler = new PacketHandler(consumer, bufferMode);
+
+		synchronized (this) {
+			isNew = consumerMap.put(id, handler) == null;
+			setHandler(id, handler);
 		}
 
-		consumerMap.put(id, consumer);
-		if (isNew) {
-			onRegister(id);
+		if (!isNew) {
+			LOGGER.warn("Registered duplicate packet " + id + "!");
+			LOGGER.trace(new Throwable());
+		} else {
+			synchronized (pendingRegistrations) {
+				// an unregistration which has not been announced yet can simply be dropped
+				if (!pendingUnregistrations.remove(id)) {
+					pendingRegistrations.add(id);
+				}
+			}
 		}
 	}
 
 	@Override
 	public void unregister(Identifier id) {
-		if (consumerMap.remove(id) != null) {
-			onUnregister(id);
+		boolean removed;
+
+		synchronized (this) {
+			removed = consumerMap.remove(id) != null;
+
+			if (removed) {
+				setHandler(id, null);
+			}
+		}
+
+		if (removed) {
+			synchronized (pendingRegistrations) {
+				// a registration which has not been announced yet does not need an unregistration either
+				if (!pendingRegistrations.remove(id)) {
+					pendingUnregistrations.add(id);
+				}
+			}
 		} else {
 			LOGGER.warn("Tried to unregister non-registered packet " + id + "!");
 			LOGGER.trace(new Throwable());
 		}
 	}
 
-	protected abstract void onRegister(Identifier id);
+	@Override
+	public void setCompression(Identifier id, PacketCompression compression) {
+		CompressedChannel previous = compression != null
+			? compressedChannels.put(id, new CompressedChannel(id, compression))
+			: compressedChannels.remove(id);
+
+		if (previous != null) {
+			uncompressedIds.remove(previous.compressedId);
+			unregister(previous.compressedId);
+		}
+
+		if (compression != null) {
+			CompressedChannel channel = compressedChannels.get(id);
+			uncompressedIds.put(channel.compressedId, id);
+
+			register(channel.compressedId, (context, buf) -> {
+				PacketByteBuf data;
+
+				try {
+					data = channel.decompress(buf);
+				} catch (DataFormatException e) {
+					LOGGER.warn("Failed to decompress packet " + id + "!", e);
+					return;
+				}
 
-	protected abstract void onUnregister(Identifier id);
+				// the compressed packet already went through the checks of accept, such as rate limits
+				if (!dispatch(id, ChannelIds.get(id), context, data)) {
+					LOGGER.warn("Received compressed packet for unknown channel " + id + "!");
+				}
+			}, PacketBufferMode.RETAINED_SLICE);
+		}
+	}
+
+	@Override
+	public PacketStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return The statistics of the connection a packet was received from, or null if they are not tracked separately.
+	 */
+	protected abstract PacketStatistics getConnectionStatistics(PacketContext context);
+
+	/**
+	 * Record a packet about to be sent.
+	 *
+	 * @param id                   The packet Identifier.
+	 * @param data                 The payload.
+	 * @param connectionStatistics The statistics of the receiving connection, or null.
+	 */
+	protected void recordSent(Identifier id, PacketByteBuf data, PacketStatistics connectionStatistics) {
+		int bytes = data.readableBytes();
+		statistics.get(id).recordSent(bytes);
+
+		if (connectionStatistics != null) {
+			connectionStatistics.get(id).recordSent(bytes);
+		}
+	}
+
+	/**
+	 * @return The compressed channel of a given packet Identifier, or null if it is not compressed.
+	 */
+	CompressedChannel getCompression(Identifier id) {
+		return compressedChannels.get(id);
+	}
+
+	/**
+	 * Get the compression to apply to a payload about to be sent.
+	 *
+	 * @param id         The packet Identifier.
+	 * @param buf        The payload.
+	 * @param canReceive Whether the receiving side registered a given packet Identifier.
+	 * @return The compressed channel to send the payload on, or null if it is to be sent uncompressed.
+	 */
+	CompressedChannel getCompression(Identifier id, PacketByteBuf buf, Predicate<Identifier> canReceive) {
+		CompressedChannel channel = compressedChannels.get(id);
+
+		if (channel != null && buf.readableBytes() >= channel.threshold && canReceive.test(channel.compressedId)) {
+			return channel;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Turn a payload into a packet, compressing it if the receiving side supports it.
+	 */
+	protected Packet<?> toPacket(Identifier id, PacketByteBuf buf, Predicate<Identifier> canReceive) {
+		CompressedChannel channel = getCompression(id, buf, canReceive);
+
+		PacketByteBuf compressed = channel != null ? channel.compress(buf) : null;
+
+		if (compressed != null) {
+			return toPacket(channel.compressedId, compressed);
+		}
+
+		return toPacket(id, buf);
+	}
+
+	private synchronized void setHandler(Identifier id, PacketHandler handler) {
+		int rawId = handler != null ? ChannelIds.getOrCreate(id) : ChannelIds.get(id);
+
+		// channels which could not be interned are only dispatched through the map
+		if (rawId < 0) {
+			return;
+		}
+
+		PacketHandler[] handlers = handlersByRawId;
+
+		if (rawId >= handlers.length) {
+			if (handler == null) {
+				return;
+			}
+
+			handlers = Arrays.copyOf(handlers, Math.max(rawId + 1, handlers.length * 2));
+		} else {
+			handlers = handlers.clone();
+		}
+
+		handlers[rawId] = handler;
+		handlersByRawId = handlers;
+	}
+
+	/**
+	 * Announce the registration changes made since the last call to every connection,
+	 * using at most one REGISTER and one UNREGISTER packet. Called at the end of every tick.
+	 */
+	public void flushPendingChanges() {
+		Optional<Packet<?>> registerPacket;
+		Optional<Packet<?>> unregisterPacket;
+
+		synchronized (pendingRegistrations) {
+			if (pendingRegistrations.isEmpty() && pendingUnregistrations.isEmpty()) {
+				return;
+			}
+
+			registerPacket = createRegisterTypePacket(PacketTypes.REGISTER, pendingRegistrations);
+			unregisterPacket = createRegisterTypePacket(PacketTypes.UNREGISTER, pendingUnregistrations);
+			pendingRegistrations.clear();
+			pendingUnregistrations.clear();
+		}
+
+		unregisterPacket.ifPresent(this::sendToAllConnections);
+		registerPacket.ifPresent(this::sendToAllConnections);
+	}
+
+	/**
+	 * Send a packet to every connection this registry announces its packet types to.
+	 */
+	protected abstract void sendToAllConnections(Packet<?> packet);
 
 	protected abstract Collection<Identifier> getIdCollectionFor(PacketContext context);
 
@@ -84,7 +289,20 @@ public abstract class PacketRegistryImpl implements PacketRegistry {
 			return Optional.empty();
 		}
 
-		PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+		return Optional.of(toPacket(id, writeIdentifiers(ids)));
+	}
+
+	/**
+	 * Write identifiers in the format of the REGISTER and UNREGISTER packets.
+	 */
+	static PacketByteBuf writeIdentifiers(Collection<Identifier> ids) {
+		// Identifiers are restricted to ASCII, so the exact size is known up front.
+		int size = Math.max(ids.size() - 1, 0);
+		for (Identifier a : ids) {
+			size += a.getNamespace().length() + 1 + a.getPath().length();
+		}
+
+		PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer(size, size));
 		boolean first = true;
 		for (Identifier a : ids) {
 			if (!first) {
@@ -92,52 +310,59 @@ public abstract class PacketRegistryImpl implements PacketRegistry {
 			} else {
 				first = false;
 			}
-			buf.writeBytes(a.toString().getBytes(StandardCharsets.US_ASCII));
+			ByteBufUtil.writeAscii(buf, a.getNamespace());
+			buf.writeByte(':');
+			ByteBufUtil.writeAscii(buf, a.getPath());
 		}
-		return Optional.of(toPacket(id, buf));
+		return buf;
 	}
 
-	private boolean acceptRegisterType(Identifier id, PacketContext context, Supplier<PacketByteBuf> bufSupplier) {
+	/**
+	 * Read identifiers in the format of the REGISTER and UNREGISTER packets, without modifying the buffer.
+	 *
+	 * @param id The channel the identifiers were received on, for logging.
+	 */
+	static Collection<Identifier> readIdentifiers(Identifier id, PacketByteBuf data) {
 		Collection<Identifier> ids = new HashSet<>();
 
-		{
-			StringBuilder sb = new StringBuilder();
-			char c;
-			PacketByteBuf buf = bufSupplier.get();
+		StringBuilder sb = new StringBuilder();
+		char c;
+		// only read here, so an unretained view suffices
+		PacketByteBuf buf = new PacketByteBuf(data.slice());
 
-			try {
-				while (buf.readerIndex() < buf.writerIndex()) {
-					c = (char) buf.readByte();
-					if (c == 0) {
-						String s = sb.toString();
-						if (!s.isEmpty()) {
-							try {
-								ids.add(new Identifier(s));
-							} catch (InvalidIdentifierException e) {
-								LOGGER.warn("Received invalid identifier in " + id + ": " + s + " (" + e.getLocalizedMessage() + ")");
-								LOGGER.trace(e);
-							}
-						}
-						sb = new StringBuilder();
-					} else {
-						sb.append(c);
+		while (buf.readerIndex() < buf.writerIndex()) {
+			c = (char) buf.readByte();
+			if (c == 0) {
+				String s = sb.toString();
+				if (!s.isEmpty()) {
+					try {
+						ids.add(new Identifier(s));
+					} catch (InvalidIdentifierException e) {
+						LOGGER.warn("Received invalid identifier in " + id + ": " + s + " (" + e.getLocalizedMessage() + ")");
+						LOGGER.trace(e);
 					}
 				}
-			} finally {
-				buf.release();
+				sb = new StringBuilder();
+			} else {
+				sb.append(c);
 			}
+		}
 
-			String s = sb.toString();
-			if (!s.isEmpty()) {
-				try {
-					ids.add(new Identifier(s));
-				} catch (InvalidIdentifierException e) {
-					LOGGER.warn("Received invalid identifier in " + id + ": " + s + " (" + e.getLocalizedMessage() + ")");
-					LOGGER.trace(e);
-				}
+		String s = sb.toString();
+		if (!s.isEmpty()) {
+			try {
+				ids.add(new Identifier(s));
+			} catch (InvalidIdentifierException e) {
+				LOGGER.warn("Received invalid identifier in " + id + ": " + s + " (" + e.getLocalizedMessage() + ")");
+				LOGGER.trace(e);
 			}
 		}
 
+		return ids;
+	}
+
+	private boolean acceptRegisterType(Identifier id, PacketContext context, PacketByteBuf data) {
+		Collection<Identifier> ids = readIdentifiers(id, data);
 		Collection<Identifier> target = getIdCollectionFor(context);
 		if (id.equals(PacketTypes.UNREGISTER)) {
 			target.removeAll(ids);
@@ -149,38 +374,86 @@ public abstract class PacketRegistryImpl implements PacketRegistry {
 		return false; // continue execution for other mods
 	}
 
+	private void recordReceived(Identifier id, PacketContext context, int bytes, long nanos) {
+		statistics.get(id).recordReceived(bytes, nanos);
+		PacketStatistics connectionStatistics = getConnectionStatistics(context);
+
+		if (connectionStatistics != null) {
+			connectionStatistics.get(id).recordReceived(bytes, nanos);
+		}
+	}
+
 	/**
 	 * Hook for accepting packets used in Fabric mixins.
 	 *
-	 * As PacketByteBuf getters in vanilla create a copy (to allow releasing the original packet buffer without
-	 * breaking other, potentially delayed accesses), we use a Supplier to generate those copies and release them
-	 * when needed.
+	 * The packet's own buffer is never handed out directly: depending on the consumer's {@link PacketBufferMode},
+	 * it receives either a copy or a retained slice, which is released after the consumer returns.
 	 *
 	 * @param id      The packet Identifier received.
 	 * @param context The packet context provided.
-	 * @param bufSupplier A supplier creating a new PacketByteBuf.
+	 * @param data    The packet's own buffer. It is neither modified nor released.
 	 * @return Whether or not the packet was handled by this packet registry.
 	 */
-	public boolean accept(Identifier id, PacketContext context, Supplier<PacketByteBuf> bufSupplier) {
-		if (id.equals(PacketTypes.REGISTER) || id.equals(PacketTypes.UNREGISTER)) {
-			return acceptRegisterType(id, context, bufSupplier);
+	public boolean accept(Identifier id, PacketContext context, PacketByteBuf data) {
+		return accept(id, ChannelIds.get(id), context, data);
+	}
+
+	/**
+	 * Accept a packet whose channel was already resolved, so that it is only looked up once per packet.
+	 *
+	 * @param rawId The {@link ChannelIds raw id} of the channel, or -1 if it has not been interned.
+	 */
+	protected boolean accept(Identifier id, int rawId, PacketContext context, PacketByteBuf data) {
+		return dispatch(id, rawId, context, data);
+	}
+
+	/**
+	 * Hand a packet to its consumer, bypassing the checks subclasses add to {@link #accept(Identifier, int, PacketContext, PacketByteBuf)}.
+	 */
+	final boolean dispatch(Identifier id, int rawId, PacketContext context, PacketByteBuf data) {
+		if (rawId == REGISTER_RAW_ID || rawId == UNREGISTER_RAW_ID) {
+			return acceptRegisterType(id, context, data);
 		}
 
-		PacketConsumer consumer = consumerMap.get(id);
-		if (consumer != null) {
-			PacketByteBuf buf = bufSupplier.get();
+		PacketHandler handler = getHandler(id, rawId);
+
+		if (handler != null) {
+			ByteBuf handed = handler.bufferMode == PacketBufferMode.RETAINED_SLICE ? data.retainedSlice() : data.copy();
+			boolean ownRefCnt = PacketBufferTracker.hasOwnRefCnt(handed);
+			PacketByteBuf buf = new PacketByteBuf(handed);
+			int refCnt = handed.refCnt();
+			int bytes = buf.readableBytes();
+			long start = System.nanoTime();
 			try {
-				consumer.accept(context, buf);
+				handler.consumer.accept(context, buf);
 			} catch (Throwable t) {
 				LOGGER.warn("Failed to handle packet " + id + "!", t);
 			} finally {
-				if (buf.refCnt() > 0 && !PacketDebugOptions.DISABLE_BUFFER_RELEASES) {
-					buf.release();
-				}
+				PacketBufferTracker.release(id, handed, refCnt, ownRefCnt);
+				recordReceived(id, context, bytes, System.nanoTime() - start);
 			}
 			return true;
 		} else {
 			return false;
 		}
 	}
+
+	/**
+	 * @return The channel whose packets are sent on the given compressed channel, or the given channel itself.
+	 */
+	Identifier getUncompressedId(Identifier id) {
+		return uncompressedIds.getOrDefault(id, id);
+	}
+
+	PacketHandler getHandler(Identifier id, int rawId) {
+		if (rawId >= 0) {
+			PacketHandler[] handlers = handlersByRawId;
+			return rawId < handlers.length ? handlers[rawId] : null;
+		} else {
+			// never interned: either not registered at all, or registered past the interning cap
+			synchronized (this) {
+				return consumerMap.get(id);
+			}
+		}
+	}
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import net.fabricmc.fabric.api.network.PacketConsumer;
+import net.fabricmc.fabric.api.network.PacketContext;
+import net.fabricmc.fabric.api.network.PacketReceiver;
+import net.fabricmc.fabric.api.network.PacketThreadMode;
+import net.minecraft.util.PacketByteBuf;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link PacketReceiver}s: decodes packets on the thread requested by their
+ * {@link PacketThreadMode}, then hands the decoded messages to the main thread.
+ * <p>
+ * Every connection has a chain of pending messages, kept on its network handler, so that
+ * messages are applied in the order their packets arrived regardless of which decode finishes first.
+ */
+public final class PacketThreadDispatcher {
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+	private static volatile ExecutorService workerPool;
+
+	private PacketThreadDispatcher() {
+
+	}
+
+	/**
+	 * Adapt a receiver into a consumer, to be registered with {@link net.fabricmc.fabric.api.network.PacketBufferMode#RETAINED_SLICE}.
+	 */
+	public static <T> PacketConsumer toConsumer(PacketThreadMode threadMode, PacketReceiver<T> receiver) {
+		return (context, buffer) -> dispatch(context, buffer, threadMode, receiver);
+	}
+
+	private static <T> void dispatch(PacketContext context, PacketByteBuf buffer, PacketThreadMode threadMode, PacketReceiver<T> receiver) {
+		// consumers of a connection are all called on its event loop, so the tail needs no lock
+		PacketContextAccessor accessor = context instanceof PacketContextAccessor ? (PacketContextAccessor) context : null;
+		CompletableFuture<Void> tail = accessor != null ? accessor.fabric_getDispatchTail() : null;
+
+		if (tail == null) {
+			tail = COMPLETED;
+		}
+
+		if (threadMode == PacketThreadMode.MAIN) {
+			buffer.retain();
+			// decoded and applied by a single task, queued once the previous messages were
+			tail = tail.thenRun(() -> context.getTaskQueue().execute(() -> {
+				T message;
+
+				try {
+					message = decode(context, buffer, receiver);
+				} catch (Throwable t) {
+					LOGGER.warn("Failed to decode packet!", t);
+					return;
+				}
+
+				if (message != null) {
+					apply(context, message, receiver);
+				}
+			})).exceptionally((t) -> {
+				LOGGER.warn("Failed to schedule packet!", t);
+				return null;
+			});
+		} else {
+			CompletableFuture<T> decoded;
+
+			if (threadMode == PacketThreadMode.NETTY) {
+				decoded = new CompletableFuture<>();
+
+				try {
+					decoded.complete(receiver.decode(context, buffer));
+				} catch (Throwable t) {
+					decoded.completeExceptionally(t);
+				}
+			} else {
+				buffer.retain();
+				decoded = CompletableFuture.supplyAsync(() -> decode(context, buffer, receiver), getWorkerPool());
+			}
+
+			tail = tail.thenCombine(decoded, (previous, message) -> message)
+				.thenAccept((message) -> {
+					if (message != null) {
+						context.getTaskQueue().execute(() -> apply(context, message, receiver));
+					}
+				})
+				.exceptionally((t) -> {
+					LOGGER.warn("Failed to decode packet!", t);
+					return null;
+				});
+		}
+
+		if (accessor != null) {
+			accessor.fabric_setDispatchTail(tail);
+		}
+	}
+
+	private static <T> T decode(PacketContext context, PacketByteBuf buffer, PacketReceiver<T> receiver) {
+		try {
+			return receiver.decode(context, buffer);
+		} finally {
+			buffer.release();
+		}
+	}
+
+	private static <T> void apply(PacketContext context, T message, PacketReceiver<T> receiver) {
+		try {
+			receiver.apply(context, message);
+		} catch (Throwable t) {
+			LOGGER.warn("Failed to apply packet!", t);
+		}
+	}
+
+	private static ExecutorService getWorkerPool() {
+		if (workerPool == null) {
+			synchronized (PacketThreadDispatcher.class) {
+				if (workerPool == null) {
+					int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+					AtomicInteger counter = new AtomicInteger();
+
+					workerPool = Executors.newFixedThreadPool(threads, (runnable) -> {
+						Thread thread = new Thread(runnable, "Fabric Networking Worker #" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+			}
+		}
+
+		return workerPool;
+	}
+}
@@ -23,5 +23,7 @@ public final class PacketTypes {
 	public static final Identifier REGISTER = new Identifier("minecraft:register");
 	public static final Identifier UNREGISTER = new Identifier("minecraft:unregister");
 
+	public static final Identifier LOGIN_REGISTER = new Identifier("fabric", "login/register");
+	public static final Identifier BUNDLE = new Identifier("fabric", "bundle");
 	public static final Identifier OPEN_CONTAINER = new Identifier("fabric", "container/open");
 }
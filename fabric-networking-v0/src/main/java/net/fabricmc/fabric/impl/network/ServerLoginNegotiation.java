@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.network;
+
+import com.mojang.authlib.GameProfile;
+import net.fabricmc.fabric.api.event.network.ServerLoginQueryCallback;
+import net.fabricmc.fabric.api.network.LoginQuerySender;
+import net.fabricmc.fabric.mixin.network.LoginQueryRequestS2CPacketAccessor;
+import net.fabricmc.fabric.mixin.network.LoginQueryResponseC2SPacketAccessor;
+import net.minecraft.client.network.packet.LoginQueryRequestS2CPacket;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.server.network.packet.LoginQueryResponseC2SPacket;
+import net.minecraft.text.LiteralText;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The login queries exchanged with one client, before it is allowed to join.
+ * <p>
+ * Queries are sent from the server thread, and their responses are received on the
+ * connection's event loop; the player joins on the first tick where nothing is left
+ * to wait for. Negotiations which never finish are ended by the vanilla login timeout.
+ */
+public final class ServerLoginNegotiation implements LoginQuerySender {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private final ClientConnection connection;
+	private final Consumer<Text> disconnector;
+	private final Map<Integer, CompletableFuture<PacketByteBuf>> pendingQueries = new ConcurrentHashMap<>();
+	private final List<CompletableFuture<?>> waits = new ArrayList<>();
+	private final AtomicInteger nextQueryId = new AtomicInteger();
+	private boolean started;
+
+	public ServerLoginNegotiation(ClientConnection connection, Consumer<Text> disconnector) {
+		this.connection = connection;
+		this.disconnector = disconnector;
+	}
+
+	public ClientConnection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * Start the negotiation if needed, and check whether it finished. Called on the server thread.
+	 *
+	 * @return True if the player may join.
+	 */
+	public boolean tick(GameProfile profile) {
+		if (!started) {
+			started = true;
+			ServerLoginQueryCallback.EVENT.invoker().onLoginQueryStart(profile, this);
+		}
+
+		synchronized (waits) {
+			Iterator<CompletableFuture<?>> it = waits.iterator();
+
+			while (it.hasNext()) {
+				CompletableFuture<?> future = it.next();
+
+				if (!future.isDone()) {
+					continue;
+				}
+
+				it.remove();
+
+				if (future.isCompletedExceptionally()) {
+					try {
+						future.join();
+					} catch (Throwable t) {
+						LOGGER.warn("Login negotiation of " + profile.getName() + " failed!", t);
+					}
+
+					waits.clear();
+					disconnector.accept(new LiteralText("Login negotiation failed"));
+					return false;
+				}
+			}
+
+			return waits.isEmpty();
+		}
+	}
+
+	@Override
+	public CompletableFuture<PacketByteBuf> sendQuery(Identifier channel, PacketByteBuf payload) {
+		int queryId = nextQueryId.getAndIncrement();
+		CompletableFuture<PacketByteBuf> future = new CompletableFuture<>();
+		pendingQueries.put(queryId, future);
+		waitFor(future);
+
+		LoginQueryRequestS2CPacket packet = new LoginQueryRequestS2CPacket();
+		LoginQueryRequestS2CPacketAccessor accessor = (LoginQueryRequestS2CPacketAccessor) packet;
+		accessor.fabric_setQueryId(queryId);
+		accessor.fabric_setChannel(channel);
+		accessor.fabric_setPayload(payload);
+		connection.send(packet);
+
+		return future;
+	}
+
+	@Override
+	public void waitFor(CompletableFuture<?> future) {
+		synchronized (waits) {
+			waits.add(future);
+		}
+	}
+
+	/**
+	 * Complete the query a response belongs to. Called on the connection's event loop.
+	 *
+	 * @return Whether or not the response belonged to a query sent through this negotiation.
+	 */
+	public boolean handle(LoginQueryResponseC2SPacket packet) {
+		LoginQueryResponseC2SPacketAccessor accessor = (LoginQueryResponseC2SPacketAccessor) packet;
+		CompletableFuture<PacketByteBuf> future = pendingQueries.remove(accessor.fabric_getQueryId());
+
+		if (future == null) {
+			return false;
+		}
+
+		future.complete(accessor.fabric_getResponse());
+		return true;
+	}
+}
@@ -19,52 +19,141 @@ package net.fabricmc.fabric.impl.network;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import net.fabricmc.fabric.api.event.network.C2SPacketTypeCallback;
+import net.fabricmc.fabric.api.event.network.ServerLoginQueryCallback;
 import net.fabricmc.fabric.api.network.PacketContext;
+import net.fabricmc.fabric.api.network.PacketRateLimit;
+import net.fabricmc.fabric.api.network.PacketStatistics;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.fabricmc.fabric.api.server.PlayerAudience;
 import net.minecraft.client.network.packet.CustomPayloadS2CPacket;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.network.Packet;
 import net.minecraft.server.network.ServerPlayNetworkHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.server.network.packet.LoginQueryResponseC2SPacket;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.PacketByteBuf;
 
-import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 public class ServerSidePacketRegistryImpl extends PacketRegistryImpl implements ServerSidePacketRegistry {
-	private final WeakHashMap<PlayerEntity, Collection<Identifier>> playerPayloadIds = new WeakHashMap<>();
-	private final Set<WeakReference<ServerPlayNetworkHandler>> handlers = new HashSet<>();
+	private final Set<ServerPlayNetworkHandler> handlers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	private final Map<Identifier, PacketRateLimit> rateLimits = new ConcurrentHashMap<>();
+	private volatile PacketRateLimit defaultRateLimit;
+	/**
+	 * Connections with deferred packets, whose handling is scheduled by {@link #flushDeferred()}.
+	 */
+	private final Set<ConnectionRateLimiter> deferredLimiters = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	/**
+	 * Packets queued by {@link #sendToPlayerBundled(PlayerEntity, Identifier, PacketByteBuf)}, sent by {@link #flushBundles()}.
+	 */
+	private final Map<ServerPlayNetworkHandler, PacketBundler> bundlers = new LinkedHashMap<>();
 
-	public void onQueryResponse(LoginQueryResponseC2SPacket packet) {
+	public ServerSidePacketRegistryImpl() {
+		// let the client announce its channels during login, so that they are known as soon as the player joins
+		ServerLoginQueryCallback.EVENT.register((profile, sender) -> {
+			ServerLoginNegotiation negotiation = (ServerLoginNegotiation) sender;
+
+			// wait for the channels to be stored too, not only for the response
+			sender.waitFor(sender.sendQuery(PacketTypes.LOGIN_REGISTER, writeIdentifiers(getRegisteredIds())).thenAccept((response) -> {
+				if (response != null) {
+					((ClientConnectionAccessor) negotiation.getConnection()).fabric_setLoginChannels(readIdentifiers(PacketTypes.LOGIN_REGISTER, response));
+				}
+			}));
+		});
+	}
+
+	/**
+	 * Apply the channels a client announced during login, once it joined.
+	 */
+	public void onReceivedLoginChannels(ServerPlayNetworkHandler handler, Collection<Identifier> ids) {
+		PacketContext context = (PacketContext) handler;
+		getIdCollectionFor(context).addAll(ids);
+		onReceivedRegisterPacket(context, ids);
 	}
 
 	public void addNetworkHandler(ServerPlayNetworkHandler handler) {
-		handlers.add(new WeakReference<>(handler));
+		handlers.add(handler);
+	}
+
+	public void removeNetworkHandler(ServerPlayNetworkHandler handler) {
+		handlers.remove(handler);
 	}
 
 	protected void forEachHandler(Consumer<ServerPlayNetworkHandler> consumer) {
-		Iterator<WeakReference<ServerPlayNetworkHandler>> it = handlers.iterator();
+		handlers.forEach(consumer);
+	}
+
+	@Override
+	public void setRateLimit(Identifier id, PacketRateLimit limit) {
+		if (limit != null) {
+			rateLimits.put(id, limit);
+		} else {
+			rateLimits.remove(id);
+		}
+	}
+
+	@Override
+	public void setDefaultRateLimit(PacketRateLimit limit) {
+		defaultRateLimit = limit;
+	}
+
+	@Override
+	protected boolean accept(Identifier id, int rawId, PacketContext context, PacketByteBuf data) {
+		// compressed packets count against the limit of their channel, before being decompressed
+		Identifier limitedId = getUncompressedId(id);
+		PacketRateLimit limit = rateLimits.isEmpty() ? null : rateLimits.get(limitedId);
+		boolean shared = limit == null;
+
+		if (shared) {
+			limit = defaultRateLimit;
+		}
+
+		// channels not handled here are left alone, as dropping them would hide them from vanilla and other handlers
+		if (limit != null && context instanceof ServerPlayNetworkHandlerAccessor && getHandler(id, rawId) != null) {
+			return ((ServerPlayNetworkHandlerAccessor) context).fabric_getRateLimiter().accept(this, id, rawId, limitedId, data, limit, shared);
+		}
+
+		return super.accept(id, rawId, context, data);
+	}
+
+	PacketRateLimit getRateLimit(Identifier id) {
+		return rateLimits.get(id);
+	}
+
+	void scheduleDeferred(ConnectionRateLimiter limiter) {
+		deferredLimiters.add(limiter);
+	}
+
+	/**
+	 * Handle the deferred packets which the rate limits allow by now. Called at the end of every tick.
+	 */
+	public void flushDeferred() {
+		if (deferredLimiters.isEmpty()) {
+			return;
+		}
+
+		Iterator<ConnectionRateLimiter> it = deferredLimiters.iterator();
+
 		while (it.hasNext()) {
-			ServerPlayNetworkHandler server = it.next().get();
-			if (server != null) {
-				consumer.accept(server);
-			} else {
-				it.remove();
-			}
+			ConnectionRateLimiter limiter = it.next();
+			it.remove();
+			limiter.scheduleDrain(this);
 		}
 	}
 
 	@Override
 	public boolean canPlayerReceive(PlayerEntity player, Identifier id) {
-		Collection<Identifier> ids = playerPayloadIds.get(player);
-		if (ids != null) {
-			return ids.contains(id);
-		} else {
-			return false;
+		if (player instanceof ServerPlayerEntity) {
+			ServerPlayNetworkHandler handler = ((ServerPlayerEntity) player).networkHandler;
+
+			if (handler instanceof ServerPlayNetworkHandlerAccessor) {
+				return ((ServerPlayNetworkHandlerAccessor) handler).fabric_getChannels().contains(id);
+			}
 		}
+
+		return false;
 	}
 
 	@Override
@@ -72,30 +161,145 @@ public class ServerSidePacketRegistryImpl extends PacketRegistryImpl implements
 		if (!(player instanceof ServerPlayerEntity)) {
 			throw new RuntimeException("Can only send to ServerPlayerEntities!");
 		} else {
-			((ServerPlayerEntity) player).networkHandler.sendPacket(packet, completionListener);
+			send(((ServerPlayerEntity) player).networkHandler, packet, completionListener);
 		}
 	}
 
+	private void send(ServerPlayNetworkHandler handler, Packet<?> packet, GenericFutureListener<? extends Future<? super Void>> completionListener) {
+		if (packet instanceof CustomPayloadS2CPacket) {
+			CustomPayloadS2CPacketAccessor accessor = (CustomPayloadS2CPacketAccessor) packet;
+			recordSent(accessor.fabric_getChannel(), accessor.getRawData(), getStatistics(handler));
+		}
+
+		handler.sendPacket(packet, completionListener);
+	}
+
 	@Override
-	public Packet<?> toPacket(Identifier id, PacketByteBuf buf) {
-		return new CustomPayloadS2CPacket(id, buf);
+	public void sendToPlayer(PlayerEntity player, Identifier id, PacketByteBuf buf, GenericFutureListener<? extends Future<? super Void>> completionListener) {
+		sendToPlayer(player, toPacket(id, buf, (compressedId) -> canPlayerReceive(player, compressedId)), completionListener);
 	}
 
 	@Override
-	protected void onRegister(Identifier id) {
-		createRegisterTypePacket(PacketTypes.REGISTER, Collections.singleton(id))
-			.ifPresent((packet) -> forEachHandler((n) -> n.sendPacket(packet)));
+	public void sendToAudience(PlayerAudience audience, Packet<?> packet) {
+		for (ServerPlayerEntity player : audience.getPlayers()) {
+			send(player.networkHandler, packet, null);
+		}
+	}
+
+	@Override
+	public void sendToAudience(PlayerAudience audience, Identifier id, PacketByteBuf buf) {
+		CompressedChannel channel = getCompression(id, buf, (compressedId) -> true);
+		PacketByteBuf compressed = null;
+
+		for (ServerPlayerEntity player : audience.getPlayers()) {
+			Identifier sentId = id;
+			PacketByteBuf sent = buf;
+
+			if (channel != null && canPlayerReceive(player, channel.compressedId)) {
+				if (compressed == null) {
+					compressed = channel.compress(buf);
+				}
+
+				if (compressed != null) {
+					sentId = channel.compressedId;
+					sent = compressed;
+				} else {
+					// not worth it, send the payload as is to everyone
+					channel = null;
+				}
+			}
+
+			// every packet reads the shared payload through its own indices, whatever encoding it does to them
+			send(player.networkHandler, toPacket(sentId, new PacketByteBuf(sent.duplicate())), null);
+		}
+	}
+
+	@Override
+	public boolean canPlayerReceiveCompressed(PlayerEntity player, Identifier id) {
+		CompressedChannel channel = getCompression(id);
+		return channel != null && canPlayerReceive(player, channel.compressedId);
+	}
+
+	@Override
+	public Packet<?> toCompressedPacket(Identifier id, PacketByteBuf buf) {
+		return toPacket(id, buf, (compressedId) -> true);
+	}
+
+	@Override
+	public void sendToPlayerBundled(PlayerEntity player, Identifier id, PacketByteBuf buf) {
+		if (!(player instanceof ServerPlayerEntity)) {
+			throw new RuntimeException("Can only send to ServerPlayerEntities!");
+		} else if (!canPlayerReceive(player, PacketTypes.BUNDLE)) {
+			sendToPlayer(player, id, buf);
+		} else {
+			ServerPlayNetworkHandler handler = ((ServerPlayerEntity) player).networkHandler;
+			CompressedChannel channel = getCompression(id, buf, (compressedId) -> canPlayerReceive(player, compressedId));
+
+			PacketByteBuf compressed = channel != null ? channel.compress(buf) : null;
+
+			if (compressed != null) {
+				id = channel.compressedId;
+				buf = compressed;
+			}
+
+			// recorded under the channel of every payload, rather than as part of a bundle
+			recordSent(id, buf, getStatistics(handler));
+
+			synchronized (bundlers) {
+				bundlers.computeIfAbsent(handler, (h) -> new PacketBundler()).add(id, buf);
+			}
+		}
+	}
+
+	/**
+	 * Send the packets queued for bundling to every client. Called at the end of every tick.
+	 */
+	public void flushBundles() {
+		List<Map.Entry<ServerPlayNetworkHandler, PacketBundler>> entries;
+
+		synchronized (bundlers) {
+			if (bundlers.isEmpty()) {
+				return;
+			}
+
+			entries = new ArrayList<>(bundlers.entrySet());
+			bundlers.clear();
+		}
+
+		for (Map.Entry<ServerPlayNetworkHandler, PacketBundler> entry : entries) {
+			ServerPlayNetworkHandler handler = entry.getKey();
+			entry.getValue().flush(this, handler::sendPacket);
+		}
+	}
+
+	@Override
+	public PacketStatistics getStatistics(PlayerEntity player) {
+		return player instanceof ServerPlayerEntity ? getStatistics(((ServerPlayerEntity) player).networkHandler) : null;
+	}
+
+	private static PacketStatistics getStatistics(ServerPlayNetworkHandler handler) {
+		return handler instanceof ServerPlayNetworkHandlerAccessor ? ((ServerPlayNetworkHandlerAccessor) handler).fabric_getStatistics() : null;
+	}
+
+	@Override
+	protected PacketStatistics getConnectionStatistics(PacketContext context) {
+		return context instanceof ServerPlayNetworkHandlerAccessor ? ((ServerPlayNetworkHandlerAccessor) context).fabric_getStatistics() : null;
+	}
+
+	@Override
+	public Packet<?> toPacket(Identifier id, PacketByteBuf buf) {
+		return new CustomPayloadS2CPacket(id, buf);
 	}
 
 	@Override
-	protected void onUnregister(Identifier id) {
-		createRegisterTypePacket(PacketTypes.UNREGISTER, Collections.singleton(id))
-			.ifPresent((packet) -> forEachHandler((n) -> n.sendPacket(packet)));
+	protected void sendToAllConnections(Packet<?> packet) {
+		forEachHandler((n) -> send(n, packet, null));
 	}
 
 	@Override
 	protected Collection<Identifier> getIdCollectionFor(PacketContext context) {
-		return playerPayloadIds.computeIfAbsent(context.getPlayer(), (p) -> new HashSet<>());
+		// the context of packets received by the server is their network handler
+		return ((ServerPlayNetworkHandlerAccessor) context).fabric_getChannels();
 	}
 
 	@Override
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.server;
+
+import net.fabricmc.fabric.api.server.PlayerAudience;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An audience which is computed at most once per server tick, into a reused list.
+ */
+public final class CachedPlayerAudience implements PlayerAudience {
+	private final MinecraftServer server;
+	private final Consumer<Collection<ServerPlayerEntity>> collector;
+	private final List<ServerPlayerEntity> players = new ArrayList<>();
+	private final List<ServerPlayerEntity> playersView = Collections.unmodifiableList(players);
+	private int cachedTick = -1;
+
+	/**
+	 * @param server    The server whose ticks invalidate the cached players.
+	 * @param collector Adds the players currently in the audience to the given collection.
+	 */
+	public CachedPlayerAudience(MinecraftServer server, Consumer<Collection<ServerPlayerEntity>> collector) {
+		this.server = server;
+		this.collector = collector;
+	}
+
+	@Override
+	public Collection<ServerPlayerEntity> getPlayers() {
+		int tick = server.getTicks();
+
+		if (tick != cachedTick) {
+			players.clear();
+			collector.accept(players);
+			cachedTick = tick;
+		}
+
+		return playersView;
+	}
+
+	public static ServerWorld toServerWorld(World world) {
+		if (world instanceof ServerWorld) {
+			return (ServerWorld) world;
+		} else {
+			throw new RuntimeException("Only supported on ServerWorld!");
+		}
+	}
+}
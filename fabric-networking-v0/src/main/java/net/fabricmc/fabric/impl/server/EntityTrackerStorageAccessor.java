@@ -19,8 +19,11 @@ package net.fabricmc.fabric.impl.server;
 import net.minecraft.entity.Entity;
 import net.minecraft.server.network.ServerPlayerEntity;
 
+import java.util.Set;
 import java.util.stream.Stream;
 
 public interface EntityTrackerStorageAccessor {
 	Stream<ServerPlayerEntity> fabric_getTrackingPlayers(Entity entity);
+
+	Set<ServerPlayerEntity> fabric_getTrackingPlayerSet(Entity entity);
 }
@@ -18,8 +18,11 @@ package net.fabricmc.fabric.impl.server;
 
 import net.minecraft.server.network.ServerPlayerEntity;
 
+import java.util.Set;
 import java.util.stream.Stream;
 
 public interface EntityTrackerStreamAccessor {
 	Stream<ServerPlayerEntity> fabric_getTrackingPlayers();
+
+	Set<ServerPlayerEntity> fabric_getTrackingPlayerSet();
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.server;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buckets the players of a world by chunk, so that players around a position can be
+ * found without checking every player of the world.
+ * <p>
+ * Players are moved to another bucket as soon as they are positioned in another chunk,
+ * which covers teleports. The index is also brought up to date from the world's player
+ * list once per tick, and whenever players joined or left the world since; as players
+ * may still move a little without being repositioned, queries look one chunk further
+ * than needed, and always check the exact distance against the players' current positions.
+ */
+public final class PlayerSpatialIndex {
+	private static final Object LOCK = new Object();
+
+	private final ServerWorld world;
+	private final Long2ObjectMap<List<ServerPlayerEntity>> buckets = new Long2ObjectOpenHashMap<>();
+	private final Map<ServerPlayerEntity, Entry> entries = new IdentityHashMap<>();
+	private long updateTime = Long.MIN_VALUE;
+	/**
+	 * Whether a player was positioned in the world without being in the index.
+	 */
+	private boolean dirty;
+
+	private PlayerSpatialIndex(ServerWorld world) {
+		this.world = world;
+	}
+
+	public static PlayerSpatialIndex get(ServerWorld world) {
+		// kept on the world itself, so that it goes away with it
+		PlayerSpatialIndexHolder holder = (PlayerSpatialIndexHolder) world;
+		PlayerSpatialIndex index = holder.fabric_getPlayerSpatialIndex();
+
+		if (index == null) {
+			synchronized (LOCK) {
+				index = holder.fabric_getPlayerSpatialIndex();
+
+				if (index == null) {
+					index = new PlayerSpatialIndex(world);
+					holder.fabric_setPlayerSpatialIndex(index);
+				}
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Move a player to the bucket of the chunk they are now in. Called whenever a player is positioned.
+	 */
+	public static void onPlayerMoved(ServerPlayerEntity player) {
+		if (!(player.world instanceof ServerWorld)) {
+			return;
+		}
+
+		PlayerSpatialIndex index = ((PlayerSpatialIndexHolder) player.world).fabric_getPlayerSpatialIndex();
+
+		if (index != null) {
+			index.move(player);
+		}
+	}
+
+	private synchronized void move(ServerPlayerEntity player) {
+		Entry entry = entries.get(player);
+
+		if (entry == null) {
+			// joined or changed worlds since the last update
+			dirty = true;
+			return;
+		}
+
+		long key = getKey(player);
+
+		if (entry.key != key) {
+			removeFromBucket(entry.key, player);
+			addToBucket(key, player);
+			entry.key = key;
+		}
+	}
+
+	/**
+	 * Add every player within the given distance of a position to a collection.
+	 *
+	 * @param x       The position's X coordinate.
+	 * @param y       The position's Y coordinate.
+	 * @param z       The position's Z coordinate.
+	 * @param radius  The maximum distance.
+	 * @param players The collection receiving the players.
+	 */
+	public synchronized void collectAround(double x, double y, double z, double radius, Collection<? super ServerPlayerEntity> players) {
+		update();
+
+		double radiusSq = radius * radius;
+		int minX = MathHelper.floor((x - radius) / 16.0D) - 1;
+		int maxX = MathHelper.floor((x + radius) / 16.0D) + 1;
+		int minZ = MathHelper.floor((z - radius) / 16.0D) - 1;
+		int maxZ = MathHelper.floor((z + radius) / 16.0D) + 1;
+
+		// for huge radii, checking every player is cheaper than visiting every bucket
+		if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > entries.size()) {
+			for (ServerPlayerEntity player : entries.keySet()) {
+				if (player.world == world && player.squaredDistanceTo(x, y, z) <= radiusSq) {
+					players.add(player);
+				}
+			}
+
+			return;
+		}
+
+		for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+			for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+				List<ServerPlayerEntity> bucket = buckets.get(ChunkPos.toLong(chunkX, chunkZ));
+
+				if (bucket != null) {
+					for (int i = 0; i < bucket.size(); i++) {
+						ServerPlayerEntity player = bucket.get(i);
+
+						// players who left the world stay in the index until the next update
+						if (player.world == world && player.squaredDistanceTo(x, y, z) <= radiusSq) {
+							players.add(player);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void update() {
+		long time = world.getTime();
+		List<ServerPlayerEntity> worldPlayers = world.getPlayers();
+
+		if (time == updateTime && !dirty && worldPlayers.size() == entries.size()) {
+			return;
+		}
+
+		updateTime = time;
+		dirty = false;
+
+		for (int i = 0; i < worldPlayers.size(); i++) {
+			ServerPlayerEntity player = worldPlayers.get(i);
+			long key = getKey(player);
+			Entry entry = entries.get(player);
+
+			if (entry == null) {
+				entry = new Entry(key);
+				entries.put(player, entry);
+				addToBucket(key, player);
+			} else if (entry.key != key) {
+				removeFromBucket(entry.key, player);
+				addToBucket(key, player);
+				entry.key = key;
+			}
+
+			entry.updateTime = time;
+		}
+
+		if (entries.size() > worldPlayers.size()) {
+			Iterator<Map.Entry<ServerPlayerEntity, Entry>> it = entries.entrySet().iterator();
+
+			while (it.hasNext()) {
+				Map.Entry<ServerPlayerEntity, Entry> entry = it.next();
+
+				if (entry.getValue().updateTime != time) {
+					removeFromBucket(entry.getValue().key, entry.getKey());
+					it.remove();
+				}
+			}
+		}
+	}
+
+	private static long getKey(ServerPlayerEntity player) {
+		return ChunkPos.toLong(MathHelper.floor(player.x) >> 4, MathHelper.floor(player.z) >> 4);
+	}
+
+	private void addToBucket(long key, ServerPlayerEntity player) {
+		List<ServerPlayerEntity> bucket = buckets.get(key);
+
+		if (bucket == null) {
+			bucket = new ArrayList<>(2);
+			buckets.put(key, bucket);
+		}
+
+		bucket.add(player);
+	}
+
+	private void removeFromBucket(long key, ServerPlayerEntity player) {
+		List<ServerPlayerEntity> bucket = buckets.get(key);
+
+		if (bucket != null) {
+			bucket.remove(player);
+
+			if (bucket.isEmpty()) {
+				buckets.remove(key);
+			}
+		}
+	}
+
+	private static final class Entry {
+		private long key;
+		private long updateTime;
+
+		private Entry(long key) {
+			this.key = key;
+		}
+	}
+}
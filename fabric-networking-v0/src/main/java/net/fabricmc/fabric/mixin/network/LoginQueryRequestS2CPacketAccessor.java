@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.mixin.network;
+
+import net.minecraft.client.network.packet.LoginQueryRequestS2CPacket;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(LoginQueryRequestS2CPacket.class)
+public interface LoginQueryRequestS2CPacketAccessor {
+	@Accessor("queryId")
+	int fabric_getQueryId();
+	@Accessor("queryId")
+	void fabric_setQueryId(int queryId);
+	@Accessor("channel")
+	Identifier fabric_getChannel();
+	@Accessor("channel")
+	void fabric_setChannel(Identifier channel);
+	@Accessor("payload")
+	PacketByteBuf fabric_getPayload();
+	@Accessor("payload")
+	void fabric_setPayload(PacketByteBuf payload);
+}
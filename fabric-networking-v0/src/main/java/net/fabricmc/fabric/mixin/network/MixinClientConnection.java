@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.mixin.network;
+
+import io.netty.channel.Channel;
+import net.fabricmc.fabric.impl.network.ClientConnectionAccessor;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.util.Identifier;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+
+import java.util.Collection;
+
+@Mixin(ClientConnection.class)
+public class MixinClientConnection implements ClientConnectionAccessor {
+	@Shadow
+	private Channel channel;
+	@Unique
+	private volatile Collection<Identifier> fabric_loginChannels;
+
+	@Override
+	public Channel fabric_getChannel() {
+		return channel;
+	}
+
+	@Override
+	public Collection<Identifier> fabric_getLoginChannels() {
+		return fabric_loginChannels;
+	}
+
+	@Override
+	public void fabric_setLoginChannels(Collection<Identifier> channels) {
+		fabric_loginChannels = channels;
+	}
+}
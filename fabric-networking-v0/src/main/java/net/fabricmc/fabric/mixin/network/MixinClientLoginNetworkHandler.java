@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.mixin.network;
+
+import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.api.network.LoginQueryResponder;
+import net.fabricmc.fabric.impl.network.ClientSidePacketRegistryImpl;
+import net.minecraft.client.network.ClientLoginNetworkHandler;
+import net.minecraft.client.network.packet.LoginQueryRequestS2CPacket;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.server.network.packet.LoginQueryResponseC2SPacket;
+import net.minecraft.util.PacketByteBuf;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientLoginNetworkHandler.class)
+public class MixinClientLoginNetworkHandler {
+	@Unique
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	@Shadow
+	@Final
+	private ClientConnection connection;
+
+	@Inject(method = "onQueryRequest", at = @At("HEAD"), cancellable = true)
+	public void onQueryRequest(LoginQueryRequestS2CPacket packet, CallbackInfo info) {
+		LoginQueryRequestS2CPacketAccessor accessor = (LoginQueryRequestS2CPacketAccessor) packet;
+		LoginQueryResponder responder = ((ClientSidePacketRegistryImpl) ClientSidePacketRegistry.INSTANCE).getLoginQueryResponder(accessor.fabric_getChannel());
+
+		// unknown queries are left to vanilla, which tells the server they were not understood
+		if (responder != null) {
+			PacketByteBuf response = null;
+
+			try {
+				response = responder.respond(accessor.fabric_getPayload());
+			} catch (Throwable t) {
+				LOGGER.warn("Failed to respond to login query " + accessor.fabric_getChannel() + "!", t);
+			}
+
+			connection.send(new LoginQueryResponseC2SPacket(accessor.fabric_getQueryId(), response));
+			info.cancel();
+		}
+	}
+}
@@ -20,6 +20,8 @@ import net.fabricmc.api.EnvType;
 import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
 import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.fabric.impl.network.ClientSidePacketRegistryImpl;
+import net.fabricmc.fabric.impl.network.CustomPayloadS2CPacketAccessor;
+import net.fabricmc.fabric.impl.network.PacketContextAccessor;
 import net.fabricmc.fabric.impl.network.PacketRegistryImpl;
 import net.fabricmc.fabric.impl.network.PacketTypes;
 import net.minecraft.client.MinecraftClient;
@@ -33,17 +35,21 @@ import net.minecraft.util.PacketByteBuf;
 import net.minecraft.util.ThreadExecutor;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Mixin(ClientPlayNetworkHandler.class)
-public abstract class MixinClientPlayNetworkHandler implements PacketContext {
+public abstract class MixinClientPlayNetworkHandler implements PacketContext, PacketContextAccessor {
 	@Shadow
 	private MinecraftClient client;
+	@Unique
+	private volatile CompletableFuture<Void> fabric_dispatchTail;
 
 	@Shadow
 	public abstract void sendPacket(Packet<?> var1);
@@ -71,11 +77,21 @@ public abstract class MixinClientPlayNetworkHandler implements PacketContext {
 
 	@Inject(method = "onCustomPayload", at = @At("HEAD"), cancellable = true)
 	public void onCustomPayload(CustomPayloadS2CPacket packet, CallbackInfo info) {
-		if (((ClientSidePacketRegistryImpl) ClientSidePacketRegistry.INSTANCE).accept(packet.getChannel(), this, packet::getData)) {
+		if (((ClientSidePacketRegistryImpl) ClientSidePacketRegistry.INSTANCE).accept(packet.getChannel(), this, ((CustomPayloadS2CPacketAccessor) packet).getRawData())) {
 			info.cancel();
 		}
 	}
 
+	@Override
+	public CompletableFuture<Void> fabric_getDispatchTail() {
+		return fabric_dispatchTail;
+	}
+
+	@Override
+	public void fabric_setDispatchTail(CompletableFuture<Void> tail) {
+		fabric_dispatchTail = tail;
+	}
+
 	@Override
 	public EnvType getPacketEnvironment() {
 		return EnvType.CLIENT;
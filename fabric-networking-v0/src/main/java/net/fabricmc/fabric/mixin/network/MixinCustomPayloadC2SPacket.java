@@ -39,4 +39,9 @@ public class MixinCustomPayloadC2SPacket implements CustomPayloadC2SPacketAccess
 	public PacketByteBuf getData() {
 		return new PacketByteBuf(this.data.copy());
 	}
+
+	@Override
+	public PacketByteBuf getRawData() {
+		return this.data;
+	}
 }
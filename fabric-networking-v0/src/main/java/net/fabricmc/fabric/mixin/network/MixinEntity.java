@@ -14,23 +14,22 @@
  * limitations under the License.
  */
 
-package net.fabricmc.fabric.mixin.registry;
 
-import net.fabricmc.fabric.impl.registry.RegistrySyncManager;
-import net.minecraft.network.ClientConnection;
-import net.minecraft.server.PlayerManager;
+import net.fabricmc.fabric.impl.server.PlayerSpatialIndex;
+import net.minecraft.entity.Entity;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-@Mixin(PlayerManager.class)
-public abstract class MixinPlayerManager {
-	@Inject(method = "onPlayerConnect", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/network/packet/DifficultyS2CPacket;<init>(Lnet/minecraft/world/Difficulty;Z)V"))
-	public void onPlayerConnect(ClientConnection lvt1, ServerPlayerEntity lvt2, CallbackInfo info) {
-		// TODO: If integrated and local, don't send the packet (it's ignored)
-		// TODO: Refactor out into network + move registry hook to event
-		lvt2.networkHandler.sendPacket(RegistrySyncManager.createPacket());
+@Mixin(Entity.class)
+public abstract class MixinEntity {
+	@Inject(method = "setPosition", at = @At("TAIL"))
+	public void setPosition(double x, double y, double z, CallbackInfo info) {
+		//noinspection ConstantConditions
+		if ((Object) this instanceof ServerPlayerEntity) {
+			PlayerSpatialIndex.onPlayerMoved((ServerPlayerEntity) (Object) this);
+		}
 	}
 }
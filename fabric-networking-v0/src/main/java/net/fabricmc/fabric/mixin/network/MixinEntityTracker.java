@@ -22,6 +22,7 @@ import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 
+import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -35,4 +36,9 @@ public class MixinEntityTracker implements EntityTrackerStreamAccessor {
 	public Stream<ServerPlayerEntity> fabric_getTrackingPlayers() {
 		return playersTracking.stream();
 	}
+
+	@Override
+	public Set<ServerPlayerEntity> fabric_getTrackingPlayerSet() {
+		return Collections.unmodifiableSet(playersTracking);
+	}
 }
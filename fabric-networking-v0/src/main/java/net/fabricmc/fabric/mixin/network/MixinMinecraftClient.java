@@ -16,6 +16,7 @@
 
 package net.fabricmc.fabric.mixin.network;
 
+import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
 import net.fabricmc.fabric.impl.network.ClientSidePacketRegistryImpl;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.Screen;
@@ -30,4 +31,9 @@ public class MixinMinecraftClient {
 	public void disconnectAfter(Screen screen_1, CallbackInfo info) {
 		ClientSidePacketRegistryImpl.invalidateRegisteredIdList();
 	}
+
+	@Inject(at = @At("RETURN"), method = "tick")
+	public void tickAfter(CallbackInfo info) {
+		((ClientSidePacketRegistryImpl) ClientSidePacketRegistry.INSTANCE).flushPendingChanges();
+	}
 }
@@ -16,29 +16,44 @@
 
 package net.fabricmc.fabric.mixin.network;
 
+import net.fabricmc.fabric.api.event.network.ServerPlayerJoinCallback;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.fabricmc.fabric.impl.network.ClientConnectionAccessor;
 import net.fabricmc.fabric.impl.network.PacketRegistryImpl;
+import net.fabricmc.fabric.impl.network.ServerPlayNetworkHandlerAccessor;
 import net.fabricmc.fabric.impl.network.ServerSidePacketRegistryImpl;
 import net.minecraft.network.ClientConnection;
 import net.minecraft.network.Packet;
 import net.minecraft.server.PlayerManager;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Mixin(priority = 500, value = PlayerManager.class)
 public abstract class MixinPlayerManager {
 	@Inject(method = "onPlayerConnect", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/network/packet/DifficultyS2CPacket;<init>(Lnet/minecraft/world/Difficulty;Z)V"))
 	public void onPlayerConnect(ClientConnection connection, ServerPlayerEntity player, CallbackInfo info) {
+		ClientConnectionAccessor connectionAccessor = (ClientConnectionAccessor) connection;
+		((ServerPlayNetworkHandlerAccessor) player.networkHandler).fabric_getRateLimiter().setChannel(connectionAccessor.fabric_getChannel());
+
+		Collection<Identifier> loginChannels = connectionAccessor.fabric_getLoginChannels();
+		if (loginChannels != null) {
+			((ServerSidePacketRegistryImpl) ServerSidePacketRegistry.INSTANCE).onReceivedLoginChannels(player.networkHandler, loginChannels);
+		}
+
 		Optional<Packet<?>> optionalPacket = PacketRegistryImpl.createInitialRegisterPacket(ServerSidePacketRegistry.INSTANCE);
 		//noinspection OptionalIsPresent
 		if (optionalPacket.isPresent()) {
 			player.networkHandler.sendPacket(optionalPacket.get());
 			((ServerSidePacketRegistryImpl) ServerSidePacketRegistry.INSTANCE).addNetworkHandler(player.networkHandler);
 		}
+
+		ServerPlayerJoinCallback.EVENT.invoker().onPlayerJoin(connection, player);
 	}
 }
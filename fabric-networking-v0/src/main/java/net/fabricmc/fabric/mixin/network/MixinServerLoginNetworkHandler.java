@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.mixin.network;
+
+import com.mojang.authlib.GameProfile;
+import net.fabricmc.fabric.impl.network.ServerLoginNegotiation;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.server.network.ServerLoginNetworkHandler;
+import net.minecraft.server.network.packet.LoginQueryResponseC2SPacket;
+import net.minecraft.text.Text;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerLoginNetworkHandler.class)
+public abstract class MixinServerLoginNetworkHandler {
+	@Shadow
+	@Final
+	public ClientConnection client;
+	@Shadow
+	private GameProfile profile;
+	@Unique
+	private volatile ServerLoginNegotiation fabric_negotiation;
+
+	@Shadow
+	public abstract void disconnect(Text reason);
+
+	@Inject(method = "acceptPlayer", at = @At("HEAD"), cancellable = true)
+	public void acceptPlayer(CallbackInfo info) {
+		if (fabric_negotiation == null) {
+			fabric_negotiation = new ServerLoginNegotiation(client, this::disconnect);
+		}
+
+		// vanilla retries accepting the player every tick until it succeeds
+		if (!fabric_negotiation.tick(profile)) {
+			info.cancel();
+		}
+	}
+
+	@Inject(method = "onQueryResponse", at = @At("HEAD"), cancellable = true)
+	public void onQueryResponse(LoginQueryResponseC2SPacket packet, CallbackInfo info) {
+		ServerLoginNegotiation negotiation = fabric_negotiation;
+
+		if (negotiation != null && negotiation.handle(packet)) {
+			info.cancel();
+		}
+	}
+}
@@ -18,38 +18,85 @@ package net.fabricmc.fabric.mixin.network;
 
 import net.fabricmc.api.EnvType;
 import net.fabricmc.fabric.api.network.PacketContext;
+import net.fabricmc.fabric.api.network.PacketStatistics;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.fabricmc.fabric.impl.network.ConnectionChannels;
+import net.fabricmc.fabric.impl.network.ConnectionRateLimiter;
 import net.fabricmc.fabric.impl.network.CustomPayloadC2SPacketAccessor;
+import net.fabricmc.fabric.impl.network.PacketContextAccessor;
+import net.fabricmc.fabric.impl.network.ServerPlayNetworkHandlerAccessor;
 import net.fabricmc.fabric.impl.network.ServerSidePacketRegistryImpl;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayNetworkHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.network.packet.CustomPayloadC2SPacket;
+import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.ThreadExecutor;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+import java.util.concurrent.CompletableFuture;
+
 @Mixin(ServerPlayNetworkHandler.class)
-public class MixinServerPlayNetworkHandler implements PacketContext {
+public class MixinServerPlayNetworkHandler implements PacketContext, PacketContextAccessor, ServerPlayNetworkHandlerAccessor {
 	@Shadow
 	private MinecraftServer server;
 	@Shadow
 	private ServerPlayerEntity player;
+	@Unique
+	private final ConnectionChannels fabric_channels = new ConnectionChannels();
+	@Unique
+	private final ConnectionRateLimiter fabric_rateLimiter = new ConnectionRateLimiter(this);
+	@Unique
+	private final PacketStatistics fabric_statistics = new PacketStatistics();
+	@Unique
+	private volatile CompletableFuture<Void> fabric_dispatchTail;
 
 	@Inject(method = "onCustomPayload", at = @At("HEAD"), cancellable = true)
 	public void onCustomPayload(CustomPayloadC2SPacket packet, CallbackInfo info) {
 		Identifier channel = ((CustomPayloadC2SPacketAccessor) packet).getChannel();
 
-		if (((ServerSidePacketRegistryImpl) ServerSidePacketRegistry.INSTANCE).accept(channel, this, ((CustomPayloadC2SPacketAccessor) packet)::getData)) {
+		if (((ServerSidePacketRegistryImpl) ServerSidePacketRegistry.INSTANCE).accept(channel, this, ((CustomPayloadC2SPacketAccessor) packet).getRawData())) {
 			info.cancel();
 		}
 	}
 
+	@Inject(method = "onDisconnected", at = @At("HEAD"))
+	public void onDisconnected(Text reason, CallbackInfo info) {
+		((ServerSidePacketRegistryImpl) ServerSidePacketRegistry.INSTANCE).removeNetworkHandler((ServerPlayNetworkHandler) (Object) this);
+	}
+
+	@Override
+	public ConnectionChannels fabric_getChannels() {
+		return fabric_channels;
+	}
+
+	@Override
+	public ConnectionRateLimiter fabric_getRateLimiter() {
+		return fabric_rateLimiter;
+	}
+
+	@Override
+	public PacketStatistics fabric_getStatistics() {
+		return fabric_statistics;
+	}
+
+	@Override
+	public CompletableFuture<Void> fabric_getDispatchTail() {
+		return fabric_dispatchTail;
+	}
+
+	@Override
+	public void fabric_setDispatchTail(CompletableFuture<Void> tail) {
+		fabric_dispatchTail = tail;
+	}
+
 	@Override
 	public EnvType getPacketEnvironment() {
 		return EnvType.SERVER;
@@ -26,6 +26,8 @@ import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.stream.Stream;
 
 @Mixin(ThreadedAnvilChunkStorage.class)
@@ -39,4 +41,10 @@ public class MixinThreadedAnvilChunkStorage implements EntityTrackerStorageAcces
 		EntityTrackerStreamAccessor accessor = entityTrackers.get(entity.getEntityId());
 		return accessor != null ? accessor.fabric_getTrackingPlayers() : Stream.empty();
 	}
+
+	@Override
+	public Set<ServerPlayerEntity> fabric_getTrackingPlayerSet(Entity entity) {
+		EntityTrackerStreamAccessor accessor = entityTrackers.get(entity.getEntityId());
+		return accessor != null ? accessor.fabric_getTrackingPlayerSet() : Collections.emptySet();
+	}
 }
@@ -18,6 +18,7 @@ package net.fabricmc.fabric.impl.registry;
 
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.api.network.PacketContext;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.text.LiteralText;
@@ -29,16 +30,27 @@ public class FabricRegistryClientInit implements ClientModInitializer {
 
 	@Override
 	public void onInitializeClient() {
+		ClientSidePacketRegistry.INSTANCE.setCompression(RegistrySyncManager.ID, RegistrySyncManager.COMPRESSION);
+		ClientSidePacketRegistry.INSTANCE.setCompression(RegistrySyncManager.INDEXED_ID, RegistrySyncManager.COMPRESSION);
 		ClientSidePacketRegistry.INSTANCE.register(RegistrySyncManager.ID, (ctx, buf) -> {
 			// if not hosting server, apply packet
-			RegistrySyncManager.receivePacket(ctx, buf, RegistrySyncManager.DEBUG || !MinecraftClient.getInstance().isInSingleplayer(), (e) -> {
-				LOGGER.error("Registry remapping failed!", e);
-				MinecraftClient.getInstance().execute(() -> {
-					((ClientPlayerEntity) ctx.getPlayer()).networkHandler.getConnection().disconnect(
-						new LiteralText("Registry remapping failed: " + e.getMessage())
-					);
-				});
-			});
+			RegistrySyncManager.receivePacket(ctx, buf, shouldApply(), (e) -> onRemapFailed(ctx, e));
+		});
+		ClientSidePacketRegistry.INSTANCE.register(RegistrySyncManager.INDEXED_ID, (ctx, buf) -> {
+			RegistrySyncManager.receiveIndexedPacket(ctx, buf, shouldApply(), (e) -> onRemapFailed(ctx, e));
+		});
+	}
+
+	private static boolean shouldApply() {
+		return RegistrySyncManager.DEBUG || !MinecraftClient.getInstance().isInSingleplayer();
+	}
+
+	private static void onRemapFailed(PacketContext ctx, Exception e) {
+		LOGGER.error("Registry remapping failed!", e);
+		MinecraftClient.getInstance().execute(() -> {
+			((ClientPlayerEntity) ctx.getPlayer()).networkHandler.getConnection().disconnect(
+				new LiteralText("Registry remapping failed: " + e.getMessage())
+			);
 		});
 	}
 }
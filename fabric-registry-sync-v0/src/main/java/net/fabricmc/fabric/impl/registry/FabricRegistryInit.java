@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.registry;
+
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.network.ServerPlayerJoinCallback;
+import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+
+public class FabricRegistryInit implements ModInitializer {
+	@Override
+	public void onInitialize() {
+		ServerSidePacketRegistry.INSTANCE.setCompression(RegistrySyncManager.ID, RegistrySyncManager.COMPRESSION);
+		ServerSidePacketRegistry.INSTANCE.setCompression(RegistrySyncManager.INDEXED_ID, RegistrySyncManager.COMPRESSION);
+
+		// fired once the client's login channels are known, so that the indexed format can be chosen
+		ServerPlayerJoinCallback.EVENT.register((connection, player) -> {
+			// the integrated server's own client shares its registries, and ignores the packet
+			if (!connection.isLocal() || RegistrySyncManager.DEBUG) {
+				RegistrySyncManager.sendPacket(player);
+			}
+		});
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2016, 2017, 2018, 2019 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.fabricmc.fabric.impl.registry;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.PacketByteBuf;
+import net.minecraft.util.registry.MutableRegistry;
+import net.minecraft.util.registry.Registry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The binary registry sync format (version 2), replacing the NBT one for clients which support it.
+ * <p>
+ * For each registry, only the entries whose raw ID differs from the vanilla assignment
+ * (or which are not vanilla at all) are written, grouped by namespace, sorted by raw ID
+ * and with their raw IDs as differences to the previous one. Vanilla entries at their
+ * vanilla raw ID are only counted; the receiver restores them from its own vanilla
+ * assignment and checks that it finds the same number of them.
+ */
+public final class IndexedRegistrySyncFormat {
+	static final int VERSION = 2;
+	/**
+	 * The raw IDs of the entries registered by vanilla, per registry, captured before any mod registers its own.
+	 */
+	private static final Map<Identifier, Object2IntMap<Identifier>> VANILLA_IDS = new HashMap<>();
+
+	private IndexedRegistrySyncFormat() {
+
+	}
+
+	/**
+	 * Capture the vanilla raw ID assignment. Called once vanilla bootstrapped its registries.
+	 */
+	public static void captureVanillaIds() {
+		for (Identifier registryId : Registry.REGISTRIES.getIds()) {
+			MutableRegistry registry = Registry.REGISTRIES.get(registryId);
+
+			if (registry instanceof RemappableRegistry) {
+				Object2IntMap<Identifier> ids = new Object2IntOpenHashMap<>();
+
+				for (Object o : registry) {
+					//noinspection unchecked
+					Identifier id = registry.getId(o);
+
+					if (id != null) {
+						//noinspection unchecked
+						ids.put(id, registry.getRawId(o));
+					}
+				}
+
+				VANILLA_IDS.put(registryId, ids);
+			}
+		}
+	}
+
+	static void write(PacketByteBuf buf) {
+		List<Identifier> registryIds = new ArrayList<>();
+
+		for (Identifier registryId : Registry.REGISTRIES.getIds()) {
+			if (RegistrySyncManager.isSynced(registryId, true) && Registry.REGISTRIES.get(registryId) instanceof RemappableRegistry) {
+				registryIds.add(registryId);
+			}
+		}
+
+		buf.writeVarInt(VERSION);
+		buf.writeVarInt(registryIds.size());
+
+		for (Identifier registryId : registryIds) {
+			MutableRegistry registry = Registry.REGISTRIES.get(registryId);
+			Object2IntMap<Identifier> vanillaIds = VANILLA_IDS.get(registryId);
+			Map<String, Int2ObjectSortedMap<String>> namespaces = new LinkedHashMap<>();
+			int implicitCount = 0;
+
+			for (Object o : registry) {
+				//noinspection unchecked
+				Identifier id = registry.getId(o);
+				if (id == null) continue;
+
+				//noinspection unchecked
+				int rawId = registry.getRawId(o);
+
+				if (vanillaIds != null && vanillaIds.containsKey(id) && vanillaIds.getInt(id) == rawId) {
+					implicitCount++;
+				} else {
+					namespaces.computeIfAbsent(id.getNamespace(), (n) -> new Int2ObjectRBTreeMap<>()).put(rawId, id.getPath());
+				}
+			}
+
+			buf.writeIdentifier(registryId);
+			buf.writeVarInt(implicitCount);
+			buf.writeVarInt(namespaces.size());
+
+			for (Map.Entry<String, Int2ObjectSortedMap<String>> namespace : namespaces.entrySet()) {
+				buf.writeString(namespace.getKey());
+				buf.writeVarInt(namespace.getValue().size());
+				int lastRawId = -1;
+
+				for (Int2ObjectMap.Entry<String> entry : namespace.getValue().int2ObjectEntrySet()) {
+					buf.writeVarInt(entry.getIntKey() - lastRawId - 1);
+					buf.writeString(entry.getValue());
+					lastRawId = entry.getIntKey();
+				}
+			}
+
+			// vanilla entries the sender does not have anymore, which the receiver must not restore
+			List<Identifier> removed = new ArrayList<>();
+
+			if (vanillaIds != null) {
+				for (Identifier id : vanillaIds.keySet()) {
+					if (!registry.containsId(id)) {
+						removed.add(id);
+					}
+				}
+			}
+
+			buf.writeVarInt(removed.size());
+
+			for (Identifier id : removed) {
+				buf.writeIdentifier(id);
+			}
+		}
+	}
+
+	static Map<Identifier, Object2IntMap<Identifier>> read(PacketByteBuf buf) throws RemapException {
+		int version = buf.readVarInt();
+
+		if (version != VERSION) {
+			throw new RemapException("Unsupported registry sync format version " + version + "!");
+		}
+
+		int registryCount = buf.readVarInt();
+		Map<Identifier, Object2IntMap<Identifier>> registries = new LinkedHashMap<>();
+
+		for (int i = 0; i < registryCount; i++) {
+			Identifier registryId = buf.readIdentifier();
+			int implicitCount = buf.readVarInt();
+			int namespaceCount = buf.readVarInt();
+			Object2IntMap<Identifier> idMap = new Object2IntOpenHashMap<>();
+
+			for (int j = 0; j < namespaceCount; j++) {
+				String namespace = buf.readString(32767);
+				int entryCount = buf.readVarInt();
+				int rawId = -1;
+
+				for (int k = 0; k < entryCount; k++) {
+					rawId += buf.readVarInt() + 1;
+					idMap.put(new Identifier(namespace, buf.readString(32767)), rawId);
+				}
+			}
+
+			int removedCount = buf.readVarInt();
+			Set<Identifier> removed = new HashSet<>();
+
+			for (int j = 0; j < removedCount; j++) {
+				removed.add(buf.readIdentifier());
+			}
+
+			Object2IntMap<Identifier> vanillaIds = VANILLA_IDS.get(registryId);
+			int restored = 0;
+
+			if (vanillaIds != null) {
+				for (Object2IntMap.Entry<Identifier> entry : vanillaIds.object2IntEntrySet()) {
+					if (!idMap.containsKey(entry.getKey()) && !removed.contains(entry.getKey())) {
+						idMap.put(entry.getKey(), entry.getIntValue());
+						restored++;
+					}
+				}
+			}
+
+			if (restored != implicitCount) {
+				throw new RemapException("Vanilla entries of " + registryId + " do not match the remote ones (expected " + implicitCount + ", found " + restored + ")! Are both sides on the same game version?");
+			}
+
+			registries.put(registryId, idMap);
+		}
+
+		return registries;
+	}
+}
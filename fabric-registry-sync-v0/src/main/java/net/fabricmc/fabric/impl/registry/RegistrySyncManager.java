@@ -24,10 +24,12 @@ import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.fabricmc.fabric.api.network.PacketCompression;
 import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.Packet;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.PacketByteBuf;
 import net.minecraft.util.registry.MutableRegistry;
@@ -39,6 +41,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -46,48 +50,132 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 public final class RegistrySyncManager {
-	static final boolean DEBUG = System.getProperty("fabric.registry.debug", "false").equalsIgnoreCase("true");
+	public static final boolean DEBUG = System.getProperty("fabric.registry.debug", "false").equalsIgnoreCase("true");
 	static final Identifier ID = new Identifier("fabric", "registry/sync");
+	/**
+	 * Carries the sync packet in the {@link IndexedRegistrySyncFormat binary format}, for clients which support it.
+	 */
+	static final Identifier INDEXED_ID = new Identifier("fabric", "registry/sync/indexed");
+	/**
+	 * The sync packet is mostly made of repeated identifier namespaces and NBT structure, which deflate handles well.
+	 */
+	static final PacketCompression COMPRESSION = PacketCompression.deflate(256);
 	private static final Logger LOGGER = LogManager.getLogger();
 	private static final boolean DEBUG_WRITE_REGISTRY_DATA = System.getProperty("fabric.registry.debug.writeContentsAsCsv", "false").equalsIgnoreCase("true");
 	private static final Set<Identifier> REGISTRY_BLACKLIST = ImmutableSet.of();
 	private static final Set<Identifier> REGISTRY_BLACKLIST_NETWORK = ImmutableSet.of();
+	/**
+	 * The sync payloads sent to joining players, encoded once for as long as no registry changes.
+	 */
+	private static volatile CachedPayload cachedPayload;
+	private static volatile CachedPayload cachedIndexedPayload;
 
 	private RegistrySyncManager() {
 
 	}
 
 	public static Packet<?> createPacket() {
+		return ServerSidePacketRegistry.INSTANCE.toPacket(ID, getCachedPayload(false).createBuffer());
+	}
+
+	public static PacketByteBuf createPayload() {
 		PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
 		buf.writeCompoundTag(toTag(true));
 
-		return ServerSidePacketRegistry.INSTANCE.toPacket(ID, buf);
+		return buf;
+	}
+
+	public static PacketByteBuf createIndexedPayload() {
+		PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+		IndexedRegistrySyncFormat.write(buf);
+
+		return buf;
+	}
+
+	/**
+	 * Send the sync packet to a player, in the binary format if the player's client announced support for it
+	 * and in the NBT format otherwise, compressed if the client announced support for that.
+	 */
+	public static void sendPacket(ServerPlayerEntity player) {
+		CachedPayload payload = getCachedPayload(ServerSidePacketRegistry.INSTANCE.canPlayerReceive(player, INDEXED_ID));
+		ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, payload.getPacket(player));
+	}
+
+	private static CachedPayload getCachedPayload(boolean indexed) {
+		CachedPayload payload = indexed ? cachedIndexedPayload : cachedPayload;
+
+		if (payload == null) {
+			PacketByteBuf buf = indexed ? createIndexedPayload() : createPayload();
+			byte[] bytes = new byte[buf.readableBytes()];
+			buf.readBytes(bytes);
+			payload = new CachedPayload(indexed ? INDEXED_ID : ID, bytes);
+
+			if (indexed) {
+				cachedIndexedPayload = payload;
+			} else {
+				cachedPayload = payload;
+			}
+		}
+
+		return payload;
+	}
+
+	/**
+	 * Drop the cached sync payloads, after registry contents or raw IDs changed.
+	 */
+	public static void invalidateCachedPayloads() {
+		cachedPayload = null;
+		cachedIndexedPayload = null;
 	}
 
 	public static void receivePacket(PacketContext context, PacketByteBuf buf, boolean accept, Consumer<Exception> errorHandler) {
 		CompoundTag compound = buf.readCompoundTag();
 
 		if (accept) {
-			try {
-				context.getTaskQueue().executeFuture(() -> {
-					if (compound == null) {
-						errorHandler.accept(new RemapException("Received null compound tag in sync packet!"));
-						return null;
-					}
+			apply(context, () -> {
+				if (compound == null) {
+					throw new RemapException("Received null compound tag in sync packet!");
+				}
 
-					try {
-						apply(compound, RemappableRegistry.RemapMode.REMOTE);
-					} catch (RemapException e) {
-						errorHandler.accept(e);
-					}
-					return null;
-				}).get(30, TimeUnit.SECONDS);
-			} catch (ExecutionException | InterruptedException | TimeoutException e) {
+				apply(compound, RemappableRegistry.RemapMode.REMOTE);
+			}, errorHandler);
+		}
+	}
+
+	public static void receiveIndexedPacket(PacketContext context, PacketByteBuf buf, boolean accept, Consumer<Exception> errorHandler) {
+		if (accept) {
+			Map<Identifier, Object2IntMap<Identifier>> registries;
+
+			try {
+				registries = IndexedRegistrySyncFormat.read(buf);
+			} catch (RemapException e) {
 				errorHandler.accept(e);
+				return;
 			}
+
+			apply(context, () -> apply(registries, RemappableRegistry.RemapMode.REMOTE), errorHandler);
 		}
 	}
 
+	private static void apply(PacketContext context, RemapAction action, Consumer<Exception> errorHandler) {
+		try {
+			context.getTaskQueue().executeFuture(() -> {
+				try {
+					action.run();
+				} catch (RemapException e) {
+					errorHandler.accept(e);
+				}
+				return null;
+			}).get(30, TimeUnit.SECONDS);
+		} catch (ExecutionException | InterruptedException | TimeoutException e) {
+			errorHandler.accept(e);
+		}
+	}
+
+	static boolean isSynced(Identifier registryId, boolean isClientSync) {
+		return !REGISTRY_BLACKLIST.contains(registryId) && !(isClientSync && REGISTRY_BLACKLIST_NETWORK.contains(registryId));
+	}
+
 	public static CompoundTag toTag(boolean isClientSync) {
 		CompoundTag mainTag = new CompoundTag();
 
@@ -125,9 +213,7 @@ public final class RegistrySyncManager {
 				}
 			}
 
-			if (REGISTRY_BLACKLIST.contains(registryId)) {
-				continue;
-			} else if (isClientSync && REGISTRY_BLACKLIST_NETWORK.contains(registryId)) {
+			if (!isSynced(registryId, isClientSync)) {
 				continue;
 			}
 
@@ -174,23 +260,38 @@ public final class RegistrySyncManager {
 
 	public static void apply(CompoundTag tag, RemappableRegistry.RemapMode mode) throws RemapException {
 		CompoundTag mainTag = tag.getCompound("registries");
-		Set<String> containedRegistries = Sets.newHashSet(mainTag.getKeys());
+		Map<Identifier, Object2IntMap<Identifier>> registries = new LinkedHashMap<>();
+
+		for (String registryKey : mainTag.getKeys()) {
+			CompoundTag registryTag = mainTag.getCompound(registryKey);
+			Object2IntMap<Identifier> idMap = new Object2IntOpenHashMap<>();
+			for (String key : registryTag.getKeys()) {
+				idMap.put(new Identifier(key), registryTag.getInt(key));
+			}
+
+			registries.put(new Identifier(registryKey), idMap);
+		}
+
+		apply(registries, mode);
+	}
+
+	/**
+	 * Remap the registries to the given raw IDs.
+	 *
+	 * @param registries The raw IDs of the entries of each registry to remap, by registry ID.
+	 */
+	public static void apply(Map<Identifier, Object2IntMap<Identifier>> registries, RemappableRegistry.RemapMode mode) throws RemapException {
+		Set<Identifier> containedRegistries = Sets.newHashSet(registries.keySet());
 
 		for (Identifier registryId : Registry.REGISTRIES.getIds()) {
-			if (!containedRegistries.remove(registryId.toString())) {
+			if (!containedRegistries.remove(registryId)) {
 				continue;
 			}
 
-			CompoundTag registryTag = mainTag.getCompound(registryId.toString());
 			MutableRegistry registry = Registry.REGISTRIES.get(registryId);
 
 			if (registry instanceof RemappableRegistry) {
-				Object2IntMap<Identifier> idMap = new Object2IntOpenHashMap<>();
-				for (String key : registryTag.getKeys()) {
-					idMap.put(new Identifier(key), registryTag.getInt(key));
-				}
-
-				((RemappableRegistry) registry).remap(registryId.toString(), idMap, mode);
+				((RemappableRegistry) registry).remap(registryId.toString(), registries.get(registryId), mode);
 			}
 		}
 
@@ -199,6 +300,44 @@ public final class RegistrySyncManager {
 		}
 	}
 
+	private static final class CachedPayload {
+		private final Identifier id;
+		private final byte[] bytes;
+		// vanilla writes packets without consuming their payload, so they can be sent again
+		private volatile Packet<?> packet;
+		private volatile Packet<?> compressedPacket;
+
+		private CachedPayload(Identifier id, byte[] bytes) {
+			this.id = id;
+			this.bytes = bytes;
+		}
+
+		private PacketByteBuf createBuffer() {
+			return new PacketByteBuf(Unpooled.wrappedBuffer(bytes));
+		}
+
+		private Packet<?> getPacket(ServerPlayerEntity player) {
+			if (ServerSidePacketRegistry.INSTANCE.canPlayerReceiveCompressed(player, id)) {
+				if (compressedPacket == null) {
+					compressedPacket = ServerSidePacketRegistry.INSTANCE.toCompressedPacket(id, createBuffer());
+				}
+
+				return compressedPacket;
+			} else {
+				if (packet == null) {
+					packet = ServerSidePacketRegistry.INSTANCE.toPacket(id, createBuffer());
+				}
+
+				return packet;
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface RemapAction {
+		void run() throws RemapException;
+	}
+
 	public static void unmap() throws RemapException {
 		for (Identifier registryId : Registry.REGISTRIES.getIds()) {
 			MutableRegistry registry = Registry.REGISTRIES.get(registryId);
@@ -16,6 +16,7 @@
 
 package net.fabricmc.fabric.mixin.registry;
 
+import net.fabricmc.fabric.impl.registry.IndexedRegistrySyncFormat;
 import net.fabricmc.fabric.impl.registry.trackers.*;
 import net.fabricmc.fabric.impl.registry.trackers.vanilla.BiomeParentTracker;
 import net.fabricmc.fabric.impl.registry.trackers.vanilla.BlockInitTracker;
@@ -57,5 +58,8 @@ public class MixinBootstrap {
 
 		// block initialization, like Blocks
 		BlockInitTracker.register(Registry.BLOCK);
+
+		// vanilla raw IDs, which the registry sync packet leaves out
+		IndexedRegistrySyncFormat.captureVanillaIds();
 	}
 }
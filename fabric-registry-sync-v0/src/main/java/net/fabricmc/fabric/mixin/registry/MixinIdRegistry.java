@@ -27,6 +27,7 @@ import net.fabricmc.fabric.api.event.registry.RegistryEntryAddedCallback;
 import net.fabricmc.fabric.api.event.registry.RegistryIdRemapCallback;
 import net.fabricmc.fabric.api.event.registry.RegistryEntryRemovedCallback;
 import net.fabricmc.fabric.impl.registry.ListenableRegistry;
+import net.fabricmc.fabric.impl.registry.RegistrySyncManager;
 import net.fabricmc.fabric.impl.registry.RemapStateImpl;
 import net.fabricmc.fabric.impl.registry.RemapException;
 import net.fabricmc.fabric.impl.registry.RemappableRegistry;
@@ -142,6 +143,7 @@ public abstract class MixinIdRegistry<T> implements RemappableRegistry, Listenab
 	@Inject(method = "set", at = @At("RETURN"))
 	public void setPost(int id, Identifier identifier, Object object, CallbackInfoReturnable info) {
 		if (fabric_isObjectNew) {
+			RegistrySyncManager.invalidateCachedPayloads();
 			fabric_addObjectEvent.invoker().onEntryAdded(id, identifier, object);
 		}
 	}
@@ -302,6 +304,8 @@ public abstract class MixinIdRegistry<T> implements RemappableRegistry, Listenab
 			}
 		}
 
+		RegistrySyncManager.invalidateCachedPayloads();
+
 		//noinspection unchecked
 		fabric_getRemapEvent().invoker().onRemap(new RemapStateImpl(registry, oldIdMap, idMap));
 	}